@@ -2,8 +2,10 @@ package learn.spring.smart_parking_lot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SmartParkingLotApplication {
 
 	public static void main(String[] args) {
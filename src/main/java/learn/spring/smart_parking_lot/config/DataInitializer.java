@@ -1,10 +1,9 @@
 package learn.spring.smart_parking_lot.config;
 
 import learn.spring.smart_parking_lot.model.Floor;
-import learn.spring.smart_parking_lot.model.ParkingSpot;
-import learn.spring.smart_parking_lot.model.ParkingSpotType;
 import learn.spring.smart_parking_lot.repository.FloorRepository;
 import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.service.SpotProvisioner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -14,11 +13,14 @@ public class DataInitializer implements CommandLineRunner {
     
     private final ParkingSpotRepository parkingSpotRepository;
     private final FloorRepository floorRepository;
+    private final SpotProvisioner spotProvisioner;
     
     @Autowired
-    public DataInitializer(ParkingSpotRepository parkingSpotRepository, FloorRepository floorRepository) {
+    public DataInitializer(ParkingSpotRepository parkingSpotRepository, FloorRepository floorRepository,
+                           SpotProvisioner spotProvisioner) {
         this.parkingSpotRepository = parkingSpotRepository;
         this.floorRepository = floorRepository;
+        this.spotProvisioner = spotProvisioner;
     }
     
     @Override
@@ -44,39 +46,11 @@ public class DataInitializer implements CommandLineRunner {
             }
         }
         
-        createFloorSpots(1, 10, 8, 2);
-        createFloorSpots(2, 8, 10, 2);
-        createFloorSpots(3, 5, 10, 5);
+        spotProvisioner.createFloorSpots(1, 10, 8, 2);
+        spotProvisioner.createFloorSpots(2, 8, 10, 2);
+        spotProvisioner.createFloorSpots(3, 5, 10, 5);
         
         long totalSpots = parkingSpotRepository.count();
         System.out.println("Initialized " + totalSpots + " parking spots across 3 floors");
     }
-    
-    private void createFloorSpots(int floor, int motorcycleSpots, int compactSpots, int largeSpots) {
-        int spotCounter = 1;
-        
-        // Create motorcycle spots
-        for (int i = 0; i < motorcycleSpots; i++) {
-            String spotNumber = String.format("%d-M-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.MOTORCYCLE);
-            parkingSpotRepository.save(spot);
-        }
-        
-        // Create compact spots
-        for (int i = 0; i < compactSpots; i++) {
-            String spotNumber = String.format("%d-C-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.COMPACT);
-            parkingSpotRepository.save(spot);
-        }
-        
-        // Create large spots
-        for (int i = 0; i < largeSpots; i++) {
-            String spotNumber = String.format("%d-L-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.LARGE);
-            parkingSpotRepository.save(spot);
-        }
-        
-        System.out.println("Floor " + floor + ": " + motorcycleSpots + " motorcycle, " + 
-                          compactSpots + " compact, " + largeSpots + " large spots created");
-    }
 }
@@ -0,0 +1,40 @@
+package learn.spring.smart_parking_lot.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the current lot into Spring and Hibernate: the lot bean scope, and the lot id Hibernate
+ * writes into and filters every lot-owned table by.
+ */
+@Configuration
+public class LotConfig {
+
+    // Static, so the scope is registered before any bean definition that uses it is instantiated
+    @Bean
+    public static LotScope lotScope() {
+        return new LotScope();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer lotTenantResolver() {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new CurrentLotResolver());
+    }
+
+    private static class CurrentLotResolver implements CurrentTenantIdentifierResolver<String> {
+
+        @Override
+        public String resolveCurrentTenantIdentifier() {
+            return LotContext.currentLot();
+        }
+
+        // A session opened for one lot must never be used for another
+        @Override
+        public boolean validateExistingCurrentSessions() {
+            return true;
+        }
+    }
+}
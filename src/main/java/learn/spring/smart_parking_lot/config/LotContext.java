@@ -0,0 +1,48 @@
+package learn.spring.smart_parking_lot.config;
+
+/**
+ * The parking lot the current thread works for. Requests under /api/lots/{lotId}/ take it from the
+ * path, scheduled work sets it for each lot in turn, and everything else works for the default lot.
+ * Hibernate restricts every query to the current lot, and lot-scoped beans resolve to its instance.
+ */
+public final class LotContext {
+
+    public static final String DEFAULT_LOT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private LotContext() {}
+
+    public static String currentLot() {
+        String lotId = CURRENT.get();
+        return lotId != null ? lotId : DEFAULT_LOT;
+    }
+
+    /**
+     * Make a lot current for this thread.
+     *
+     * @return the lot to hand to {@link #restore} once the work is done
+     */
+    public static String enter(String lotId) {
+        String previous = CURRENT.get();
+        CURRENT.set(lotId);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static void run(String lotId, Runnable task) {
+        String previous = enter(lotId);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package learn.spring.smart_parking_lot.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import learn.spring.smart_parking_lot.service.LotRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes the lot in a /api/lots/{lotId}/... path current for the rest of the request, so the
+ * controllers behind it serve that lot. Runs before the request opens its persistence session,
+ * which is then bound to the lot. Paths without a lot serve the default lot.
+ */
+@Component
+public class LotContextFilter extends OncePerRequestFilter {
+
+    private static final String LOT_PATH = "/api/lots/";
+
+    private final LotRegistry lotRegistry;
+
+    @Autowired
+    public LotContextFilter(LotRegistry lotRegistry) {
+        this.lotRegistry = lotRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int lotEnd = path.startsWith(LOT_PATH) ? path.indexOf('/', LOT_PATH.length()) : -1;
+        if (lotEnd < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String lotId = path.substring(LOT_PATH.length(), lotEnd);
+        if (!lotRegistry.isOpen(lotId)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown parking lot: " + lotId);
+            return;
+        }
+        String previous = LotContext.enter(lotId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LotContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package learn.spring.smart_parking_lot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bean scope with one instance per parking lot, for the in-memory state a lot owns: its free spot
+ * index, occupancy counters, active tickets and so on. An instance is created the first time its
+ * lot asks for it, and lots never share one, so traffic in one lot never waits on another lot's
+ * locks. Beans use it through {@link LotScoped} proxies, which look up the current lot's instance
+ * on every call.
+ */
+public class LotScope implements Scope, BeanFactoryPostProcessor {
+
+    public static final String NAME = "lot";
+
+    private static final Logger log = LoggerFactory.getLogger(LotScope.class);
+
+    private final Map<String, Lot> lots = new ConcurrentHashMap<>();
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        beanFactory.registerScope(NAME, this);
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        Lot lot = lots.computeIfAbsent(LotContext.currentLot(), lotId -> new Lot());
+        Object bean = lot.beans.get(name);
+        if (bean == null) {
+            // Creating a bean may create the lot beans it calls, on this same thread
+            synchronized (lot) {
+                bean = lot.beans.get(name);
+                if (bean == null) {
+                    bean = objectFactory.getObject();
+                    lot.beans.put(name, bean);
+                }
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object remove(String name) {
+        Lot lot = lots.get(LotContext.currentLot());
+        if (lot == null) {
+            return null;
+        }
+        synchronized (lot) {
+            lot.destructionCallbacks.remove(name);
+            return lot.beans.remove(name);
+        }
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        Lot lot = lots.computeIfAbsent(LotContext.currentLot(), lotId -> new Lot());
+        synchronized (lot) {
+            lot.destructionCallbacks.put(name, callback);
+        }
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return LotContext.currentLot();
+    }
+
+    /**
+     * Destroy every lot's beans, each with its own lot current and in the reverse of the order they
+     * were created.
+     */
+    public void destroyAll() {
+        lots.forEach((lotId, lot) -> LotContext.run(lotId, () -> {
+            List<Map.Entry<String, Runnable>> callbacks;
+            synchronized (lot) {
+                callbacks = new ArrayList<>(lot.destructionCallbacks.entrySet());
+                lot.destructionCallbacks.clear();
+                lot.beans.clear();
+            }
+            Collections.reverse(callbacks);
+            for (Map.Entry<String, Runnable> callback : callbacks) {
+                try {
+                    callback.getValue().run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to destroy bean {} of lot {}", callback.getKey(), lotId, e);
+                }
+            }
+        }));
+        lots.clear();
+    }
+
+    private static class Lot {
+        private final Map<String, Object> beans = new ConcurrentHashMap<>();
+        // Guarded by the lot
+        private final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,21 @@
+package learn.spring.smart_parking_lot.config;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * One instance of the bean per parking lot. Other beans get a proxy that forwards each call to the
+ * instance of the lot current at the time of the call.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Scope(value = LotScope.NAME, proxyMode = ScopedProxyMode.TARGET_CLASS)
+public @interface LotScoped {
+}
@@ -4,40 +4,82 @@ import learn.spring.smart_parking_lot.dto.AddFloorRequest;
 import learn.spring.smart_parking_lot.dto.AddSpotRequest;
 import learn.spring.smart_parking_lot.dto.FloorMaintenanceRequest;
 import learn.spring.smart_parking_lot.dto.FloorStatus;
+import learn.spring.smart_parking_lot.dto.OccupancySample;
 import learn.spring.smart_parking_lot.model.ParkingSpot;
 import learn.spring.smart_parking_lot.service.FloorManagementService;
+import learn.spring.smart_parking_lot.service.OccupancyCounters;
+import learn.spring.smart_parking_lot.service.OccupancyHistory;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 @RestController
-@RequestMapping("/api/floors")
+@RequestMapping({"/api/floors", "/api/lots/{lotId}/floors"})
 @CrossOrigin(origins = "*")
 public class FloorManagementController {
     
     private final FloorManagementService floorManagementService;
+    private final OccupancyCounters occupancyCounters;
+    private final OccupancyHistory occupancyHistory;
     
     @Autowired
-    public FloorManagementController(FloorManagementService floorManagementService) {
+    public FloorManagementController(FloorManagementService floorManagementService,
+                                     OccupancyCounters occupancyCounters,
+                                     OccupancyHistory occupancyHistory) {
         this.floorManagementService = floorManagementService;
+        this.occupancyCounters = occupancyCounters;
+        this.occupancyHistory = occupancyHistory;
     }
     
+    /**
+     * Tagged with the occupancy version, like the lot status: an unchanged lot answers 304
+     * without querying the floors.
+     */
     @GetMapping
-    public ResponseEntity<List<FloorStatus>> getAllFloors() {
+    public ResponseEntity<List<FloorStatus>> getAllFloors(WebRequest webRequest) {
+        String etag = occupancyCounters.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         List<FloorStatus> floors = floorManagementService.getAllFloorsStatus();
-        return ResponseEntity.ok(floors);
+        return ResponseEntity.ok().eTag(etag).body(floors);
+    }
+    
+    /**
+     * Occupancy per floor and spot type between from and to, the last 24 hours by default. Without a
+     * resolution, the finest one whose history reaches back to from.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<OccupancySample>> getOccupancyHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) OccupancyHistory.Resolution resolution) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        OccupancyHistory.Resolution bucketSize = resolution != null ? resolution : occupancyHistory.finestResolutionSince(start);
+        return ResponseEntity.ok(occupancyHistory.getHistory(start, end, bucketSize));
     }
     
     @GetMapping("/{floorNumber}")
-    public ResponseEntity<FloorStatus> getFloorStatus(@PathVariable int floorNumber) {
+    public ResponseEntity<FloorStatus> getFloorStatus(@PathVariable int floorNumber, WebRequest webRequest) {
+        String etag = occupancyCounters.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             FloorStatus floor = floorManagementService.getFloorStatus(floorNumber);
-            return ResponseEntity.ok(floor);
+            return ResponseEntity.ok().eTag(etag).body(floor);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
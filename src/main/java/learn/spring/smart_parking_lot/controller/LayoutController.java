@@ -0,0 +1,70 @@
+package learn.spring.smart_parking_lot.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import learn.spring.smart_parking_lot.service.LayoutService;
+import learn.spring.smart_parking_lot.service.LayoutService.ImportSummary;
+import learn.spring.smart_parking_lot.service.LayoutService.LayoutFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping({"/api/layout", "/api/lots/{lotId}/layout"})
+@CrossOrigin(origins = "*")
+public class LayoutController {
+
+    private final LayoutService layoutService;
+
+    @Autowired
+    public LayoutController(LayoutService layoutService) {
+        this.layoutService = layoutService;
+    }
+
+    /**
+     * Add the floors and spots in the request body, a JSON or CSV layout file. The body is parsed as
+     * it arrives, so the file can be any size.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importLayout(@RequestParam(defaultValue = "json") String format,
+                                                            HttpServletRequest request) throws IOException {
+        Optional<LayoutFormat> layoutFormat = LayoutFormat.parse(format);
+        if (layoutFormat.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("message", "Unknown layout format: " + format, "success", false));
+        }
+        ImportSummary summary = layoutService.importLayout(layoutFormat.get(), request.getInputStream());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(Map.of(
+                "message", "Layout imported successfully",
+                "success", true,
+                "floors", summary.floors(),
+                "spots", summary.spots()
+            ));
+    }
+
+    /**
+     * Every spot as JSON or CSV, in the format the import reads. Spots are written as they are read.
+     */
+    @GetMapping("/export")
+    public void exportLayout(@RequestParam(defaultValue = "json") String format,
+                             HttpServletResponse response) throws IOException {
+        Optional<LayoutFormat> layoutFormat = LayoutFormat.parse(format);
+        if (layoutFormat.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(layoutFormat.get().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"layout." + layoutFormat.get().name().toLowerCase(Locale.ROOT) + "\"");
+        layoutService.exportLayout(layoutFormat.get(), response.getOutputStream());
+    }
+}
@@ -2,46 +2,104 @@ package learn.spring.smart_parking_lot.controller;
 
 import learn.spring.smart_parking_lot.dto.ParkingLotStatus;
 import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryBatchRequest;
 import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitBatchRequest;
 import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.service.OccupancyCounters;
+import learn.spring.smart_parking_lot.service.OccupancyStream;
 import learn.spring.smart_parking_lot.service.ParkingService;
+import learn.spring.smart_parking_lot.service.ParkingStatistics;
+import learn.spring.smart_parking_lot.service.ParkingStatistics.RequestType;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
-@RequestMapping("/api/parking")
+@RequestMapping({"/api/parking", "/api/lots/{lotId}/parking"})
 @CrossOrigin(origins = "*")
 public class ParkingController {
     
     private final ParkingService parkingService;
+    private final OccupancyStream occupancyStream;
+    private final OccupancyCounters occupancyCounters;
+    private final ParkingStatistics parkingStatistics;
     
     @Autowired
-    public ParkingController(ParkingService parkingService) {
+    public ParkingController(ParkingService parkingService, OccupancyStream occupancyStream,
+                             OccupancyCounters occupancyCounters, ParkingStatistics parkingStatistics) {
         this.parkingService = parkingService;
+        this.occupancyStream = occupancyStream;
+        this.occupancyCounters = occupancyCounters;
+        this.parkingStatistics = parkingStatistics;
     }
     
     @PostMapping("/entry")
     public ResponseEntity<ParkingResponse> parkVehicle(@Valid @RequestBody VehicleEntryRequest request) {
-        ParkingResponse response = parkingService.parkVehicle(request);
+        ParkingResponse response = timed(RequestType.ENTRY, () -> parkingService.parkVehicle(request));
         return ResponseEntity.ok(response);
     }
     
     @PostMapping("/exit")
     public ResponseEntity<ParkingResponse> exitVehicle(@Valid @RequestBody VehicleExitRequest request) {
-        ParkingResponse response = parkingService.exitVehicle(request);
+        ParkingResponse response = timed(RequestType.EXIT, () -> parkingService.exitVehicle(request));
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/entry/batch")
+    public ResponseEntity<List<ParkingResponse>> parkVehicles(@Valid @RequestBody VehicleEntryBatchRequest request) {
+        List<ParkingResponse> responses = timed(RequestType.ENTRY_BATCH, () -> parkingService.parkVehicles(request.getVehicles()));
+        return ResponseEntity.ok(responses);
+    }
+    
+    @PostMapping("/exit/batch")
+    public ResponseEntity<List<ParkingResponse>> exitVehicles(@Valid @RequestBody VehicleExitBatchRequest request) {
+        List<ParkingResponse> responses = timed(RequestType.EXIT_BATCH, () -> parkingService.exitVehicles(request.getVehicles()));
+        return ResponseEntity.ok(responses);
+    }
+    
+    /**
+     * Tagged with the occupancy version: a poll with a matching If-None-Match gets 304 without
+     * the status being built.
+     */
     @GetMapping("/status")
-    public ResponseEntity<ParkingLotStatus> getParkingLotStatus() {
+    public ResponseEntity<ParkingLotStatus> getParkingLotStatus(WebRequest webRequest) {
+        String etag = occupancyCounters.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         ParkingLotStatus status = parkingService.getParkingLotStatus();
-        return ResponseEntity.ok(status);
+        return ResponseEntity.ok().eTag(etag).body(status);
+    }
+    
+    /**
+     * Server-Sent Events: a "snapshot" event with every floor and spot type, then coalesced
+     * "availability" events with the current counts of whatever changed.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability() {
+        return occupancyStream.subscribe();
     }
     
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Smart Parking Lot API is running");
     }
+    
+    // Includes the commit, which the service's own transaction boundary would hide
+    private <T> T timed(RequestType requestType, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            parkingStatistics.recordLatency(requestType, System.nanoTime() - start);
+        }
+    }
 }
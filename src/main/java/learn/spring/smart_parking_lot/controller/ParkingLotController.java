@@ -0,0 +1,49 @@
+package learn.spring.smart_parking_lot.controller;
+
+import jakarta.validation.Valid;
+import learn.spring.smart_parking_lot.dto.AddLotRequest;
+import learn.spring.smart_parking_lot.model.ParkingLot;
+import learn.spring.smart_parking_lot.service.LotRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lots served here. Every other endpoint serves one lot: under /api/lots/{lotId}/ the lot in the
+ * path, and without that prefix the default lot.
+ */
+@RestController
+@RequestMapping("/api/lots")
+@CrossOrigin(origins = "*")
+public class ParkingLotController {
+
+    private final LotRegistry lotRegistry;
+
+    @Autowired
+    public ParkingLotController(LotRegistry lotRegistry) {
+        this.lotRegistry = lotRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ParkingLot>> getLots() {
+        return ResponseEntity.ok(lotRegistry.getLots());
+    }
+
+    /**
+     * Add an empty lot. Its floors are added through /api/lots/{lotId}/floors or a layout import.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> addLot(@Valid @RequestBody AddLotRequest request) {
+        ParkingLot lot = lotRegistry.createLot(request.getLotId(), request.getName());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(Map.of(
+                "message", "Parking lot " + lot.getId() + " added successfully",
+                "success", true,
+                "lotId", lot.getId()
+            ));
+    }
+}
@@ -0,0 +1,66 @@
+package learn.spring.smart_parking_lot.controller;
+
+import learn.spring.smart_parking_lot.dto.ReservationRequest;
+import learn.spring.smart_parking_lot.dto.ReservationResponse;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.service.ReservationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping({"/api/reservations", "/api/lots/{lotId}/reservations"})
+@CrossOrigin(origins = "*")
+public class ReservationController {
+    
+    private final ReservationService reservationService;
+    
+    @Autowired
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+    
+    @PostMapping
+    public ResponseEntity<ReservationResponse> createReservation(@Valid @RequestBody ReservationRequest request) {
+        Reservation reservation = reservationService.createReservation(
+            request.getLicensePlate(),
+            request.getSpotType(),
+            request.getStartTime(),
+            request.getEndTime()
+        );
+        return ResponseEntity.status(HttpStatus.CREATED).body(ReservationResponse.of(reservation));
+    }
+    
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(
+            @RequestParam ParkingSpotType spotType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        long available = reservationService.getAvailableCapacity(spotType, startTime, endTime);
+        return ResponseEntity.ok(Map.of(
+            "spotType", spotType,
+            "startTime", startTime,
+            "endTime", endTime,
+            "availableSpots", available
+        ));
+    }
+    
+    @GetMapping("/{reservationNumber}")
+    public ResponseEntity<ReservationResponse> getReservation(@PathVariable String reservationNumber) {
+        Reservation reservation = reservationService.getReservation(reservationNumber);
+        return ResponseEntity.ok(ReservationResponse.of(reservation));
+    }
+    
+    @DeleteMapping("/{reservationNumber}")
+    public ResponseEntity<ReservationResponse> cancelReservation(@PathVariable String reservationNumber) {
+        Reservation reservation = reservationService.cancelReservation(reservationNumber);
+        return ResponseEntity.ok(ReservationResponse.of(reservation));
+    }
+}
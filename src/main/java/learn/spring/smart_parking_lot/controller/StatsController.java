@@ -0,0 +1,33 @@
+package learn.spring.smart_parking_lot.controller;
+
+import learn.spring.smart_parking_lot.dto.DwellTimeStats;
+import learn.spring.smart_parking_lot.dto.LatencyStats;
+import learn.spring.smart_parking_lot.service.ParkingStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping({"/api/stats", "/api/lots/{lotId}/stats"})
+@CrossOrigin(origins = "*")
+public class StatsController {
+    
+    private final ParkingStatistics parkingStatistics;
+    
+    @Autowired
+    public StatsController(ParkingStatistics parkingStatistics) {
+        this.parkingStatistics = parkingStatistics;
+    }
+    
+    @GetMapping("/dwell")
+    public ResponseEntity<List<DwellTimeStats>> getDwellTimeStats() {
+        return ResponseEntity.ok(parkingStatistics.getDwellTimeStats());
+    }
+    
+    @GetMapping("/latency")
+    public ResponseEntity<List<LatencyStats>> getLatencyStats() {
+        return ResponseEntity.ok(parkingStatistics.getLatencyStats());
+    }
+}
@@ -0,0 +1,67 @@
+package learn.spring.smart_parking_lot.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import learn.spring.smart_parking_lot.dto.TicketPage;
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.service.TicketExportService;
+import learn.spring.smart_parking_lot.service.TicketExportService.ExportFormat;
+import learn.spring.smart_parking_lot.service.TicketSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+
+@RestController
+@RequestMapping({"/api/tickets", "/api/lots/{lotId}/tickets"})
+@CrossOrigin(origins = "*")
+public class TicketController {
+    
+    private final TicketExportService ticketExportService;
+    private final TicketSearchService ticketSearchService;
+    
+    @Autowired
+    public TicketController(TicketExportService ticketExportService, TicketSearchService ticketSearchService) {
+        this.ticketExportService = ticketExportService;
+        this.ticketSearchService = ticketSearchService;
+    }
+    
+    /**
+     * Tickets matching the optional filters (from, to, floor, vehicleType, status), oldest entry
+     * first, limit per page. Pass a page's nextCursor as cursor to get the page after it.
+     */
+    @GetMapping
+    public ResponseEntity<TicketPage> searchTickets(@Valid TicketSearchRequest request) {
+        return ResponseEntity.ok(ticketSearchService.searchTickets(request));
+    }
+    
+    /**
+     * Tickets with the given status (PAID by default) that entered in [from, to), as CSV or
+     * newline-delimited JSON. Rows are written as they are read, so the response can be any size.
+     */
+    @GetMapping("/export")
+    public void exportTickets(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "PAID") TicketStatus status,
+            HttpServletResponse response) throws IOException {
+        Optional<ExportFormat> exportFormat = ExportFormat.parse(format);
+        if (exportFormat.isEmpty() || from.isAfter(to)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(exportFormat.get().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"tickets." + exportFormat.get().name().toLowerCase(Locale.ROOT) + "\"");
+        ticketExportService.exportTickets(status, from, to, exportFormat.get(), response.getOutputStream());
+    }
+}
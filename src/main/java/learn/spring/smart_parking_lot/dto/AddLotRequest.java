@@ -0,0 +1,38 @@
+package learn.spring.smart_parking_lot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+public class AddLotRequest {
+    // Used as a path segment, so kept to characters that never need escaping
+    @NotBlank(message = "Lot id is required")
+    @Pattern(regexp = "[a-z0-9][a-z0-9-]{0,31}", message = "Lot id must be 1-32 lowercase letters, digits or hyphens")
+    private String lotId;
+
+    @NotBlank(message = "Lot name is required")
+    private String name;
+
+    public AddLotRequest() {}
+
+    public AddLotRequest(String lotId, String name) {
+        this.lotId = lotId;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public String getLotId() {
+        return lotId;
+    }
+
+    public void setLotId(String lotId) {
+        this.lotId = lotId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,86 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.VehicleType;
+
+/**
+ * Percentiles of completed stays for one vehicle type, on one floor or, when floorNumber is null, on all floors.
+ */
+public class DwellTimeStats {
+    private VehicleType vehicleType;
+    private Integer floorNumber;
+    private long count;
+    private long p50Minutes;
+    private long p90Minutes;
+    private long p99Minutes;
+    private long maxMinutes;
+
+    public DwellTimeStats() {}
+
+    public DwellTimeStats(VehicleType vehicleType, Integer floorNumber, long count,
+                          long p50Minutes, long p90Minutes, long p99Minutes, long maxMinutes) {
+        this.vehicleType = vehicleType;
+        this.floorNumber = floorNumber;
+        this.count = count;
+        this.p50Minutes = p50Minutes;
+        this.p90Minutes = p90Minutes;
+        this.p99Minutes = p99Minutes;
+        this.maxMinutes = maxMinutes;
+    }
+
+    // Getters and Setters
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public void setVehicleType(VehicleType vehicleType) {
+        this.vehicleType = vehicleType;
+    }
+
+    public Integer getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(Integer floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Minutes() {
+        return p50Minutes;
+    }
+
+    public void setP50Minutes(long p50Minutes) {
+        this.p50Minutes = p50Minutes;
+    }
+
+    public long getP90Minutes() {
+        return p90Minutes;
+    }
+
+    public void setP90Minutes(long p90Minutes) {
+        this.p90Minutes = p90Minutes;
+    }
+
+    public long getP99Minutes() {
+        return p99Minutes;
+    }
+
+    public void setP99Minutes(long p99Minutes) {
+        this.p99Minutes = p99Minutes;
+    }
+
+    public long getMaxMinutes() {
+        return maxMinutes;
+    }
+
+    public void setMaxMinutes(long maxMinutes) {
+        this.maxMinutes = maxMinutes;
+    }
+}
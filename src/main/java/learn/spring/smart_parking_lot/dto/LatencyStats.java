@@ -0,0 +1,73 @@
+package learn.spring.smart_parking_lot.dto;
+
+/**
+ * Percentiles of the time taken to handle one kind of request, in microseconds.
+ */
+public class LatencyStats {
+    private String request;
+    private long count;
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+    private long maxMicros;
+
+    public LatencyStats() {}
+
+    public LatencyStats(String request, long count, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+        this.request = request;
+        this.count = count;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    // Getters and Setters
+    public String getRequest() {
+        return request;
+    }
+
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public void setP50Micros(long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public void setP90Micros(long p90Micros) {
+        this.p90Micros = p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public void setP99Micros(long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+}
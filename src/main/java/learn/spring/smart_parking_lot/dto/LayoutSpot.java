@@ -0,0 +1,55 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+
+/**
+ * One spot of a lot layout, as imported and exported.
+ */
+public class LayoutSpot {
+    private Integer floor;
+    private String spotNumber;
+    private ParkingSpotType spotType;
+    private Integer position;
+
+    public LayoutSpot() {}
+
+    public LayoutSpot(Integer floor, String spotNumber, ParkingSpotType spotType, Integer position) {
+        this.floor = floor;
+        this.spotNumber = spotNumber;
+        this.spotType = spotType;
+        this.position = position;
+    }
+
+    // Getters and Setters
+    public Integer getFloor() {
+        return floor;
+    }
+
+    public void setFloor(Integer floor) {
+        this.floor = floor;
+    }
+
+    public String getSpotNumber() {
+        return spotNumber;
+    }
+
+    public void setSpotNumber(String spotNumber) {
+        this.spotNumber = spotNumber;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+}
@@ -0,0 +1,78 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Occupancy of one spot type on one floor over one history bucket starting at {@code time}.
+ */
+public class OccupancySample {
+    private LocalDateTime time;
+    private int floorNumber;
+    private ParkingSpotType spotType;
+    private double averageOccupied;
+    private int maxOccupied;
+    private int totalSpots;
+
+    public OccupancySample() {}
+
+    public OccupancySample(LocalDateTime time, int floorNumber, ParkingSpotType spotType,
+                           double averageOccupied, int maxOccupied, int totalSpots) {
+        this.time = time;
+        this.floorNumber = floorNumber;
+        this.spotType = spotType;
+        this.averageOccupied = averageOccupied;
+        this.maxOccupied = maxOccupied;
+        this.totalSpots = totalSpots;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public void setTime(LocalDateTime time) {
+        this.time = time;
+    }
+
+    public int getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(int floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public double getAverageOccupied() {
+        return averageOccupied;
+    }
+
+    public void setAverageOccupied(double averageOccupied) {
+        this.averageOccupied = averageOccupied;
+    }
+
+    public int getMaxOccupied() {
+        return maxOccupied;
+    }
+
+    public void setMaxOccupied(int maxOccupied) {
+        this.maxOccupied = maxOccupied;
+    }
+
+    public int getTotalSpots() {
+        return totalSpots;
+    }
+
+    public void setTotalSpots(int totalSpots) {
+        this.totalSpots = totalSpots;
+    }
+}
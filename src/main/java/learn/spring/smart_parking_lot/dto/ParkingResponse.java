@@ -2,16 +2,19 @@ package learn.spring.smart_parking_lot.dto;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class ParkingResponse {
     private boolean success;
     private String message;
     private String ticketNumber;
     private String spotNumber;
+    private List<String> spotNumbers;
     private LocalDateTime entryTime;
     private LocalDateTime exitTime;
     private BigDecimal fee;
     private Long durationInMinutes;
+    private String reservationNumber;
 
     public ParkingResponse() {}
 
@@ -61,6 +64,14 @@ public class ParkingResponse {
         this.spotNumber = spotNumber;
     }
 
+    public List<String> getSpotNumbers() {
+        return spotNumbers;
+    }
+
+    public void setSpotNumbers(List<String> spotNumbers) {
+        this.spotNumbers = spotNumbers;
+    }
+
     public LocalDateTime getEntryTime() {
         return entryTime;
     }
@@ -92,4 +103,12 @@ public class ParkingResponse {
     public void setDurationInMinutes(Long durationInMinutes) {
         this.durationInMinutes = durationInMinutes;
     }
+
+    public String getReservationNumber() {
+        return reservationNumber;
+    }
+
+    public void setReservationNumber(String reservationNumber) {
+        this.reservationNumber = reservationNumber;
+    }
 }
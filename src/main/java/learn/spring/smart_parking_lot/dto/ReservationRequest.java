@@ -0,0 +1,64 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.Vehicle;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public class ReservationRequest {
+    @NotBlank(message = "License plate is required")
+    private String licensePlate;
+
+    @NotNull(message = "Spot type is required")
+    private ParkingSpotType spotType;
+
+    @NotNull(message = "Start time is required")
+    private LocalDateTime startTime;
+
+    @NotNull(message = "End time is required")
+    private LocalDateTime endTime;
+
+    public ReservationRequest() {}
+
+    public ReservationRequest(String licensePlate, ParkingSpotType spotType, LocalDateTime startTime, LocalDateTime endTime) {
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
+        this.spotType = spotType;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    // Getters and Setters
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+}
@@ -0,0 +1,88 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.model.ReservationStatus;
+
+import java.time.LocalDateTime;
+
+public class ReservationResponse {
+    private String reservationNumber;
+    private String licensePlate;
+    private ParkingSpotType spotType;
+    private int floorNumber;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private ReservationStatus status;
+
+    public ReservationResponse() {}
+
+    public static ReservationResponse of(Reservation reservation) {
+        ReservationResponse response = new ReservationResponse();
+        response.reservationNumber = reservation.getReservationNumber();
+        response.licensePlate = reservation.getLicensePlate();
+        response.spotType = reservation.getSpotType();
+        response.floorNumber = reservation.getFloorNumber();
+        response.startTime = reservation.getStartTime();
+        response.endTime = reservation.getEndTime();
+        response.status = reservation.getStatus();
+        return response;
+    }
+
+    // Getters and Setters
+    public String getReservationNumber() {
+        return reservationNumber;
+    }
+
+    public void setReservationNumber(String reservationNumber) {
+        this.reservationNumber = reservationNumber;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = licensePlate;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public int getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(int floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,55 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+
+/**
+ * Free and total spots of one type on one floor, as pushed to occupancy stream subscribers.
+ */
+public class SpotAvailability {
+    private int floorNumber;
+    private ParkingSpotType spotType;
+    private long availableSpots;
+    private long totalSpots;
+
+    public SpotAvailability() {}
+
+    public SpotAvailability(int floorNumber, ParkingSpotType spotType, long availableSpots, long totalSpots) {
+        this.floorNumber = floorNumber;
+        this.spotType = spotType;
+        this.availableSpots = availableSpots;
+        this.totalSpots = totalSpots;
+    }
+
+    // Getters and Setters
+    public int getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(int floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public long getAvailableSpots() {
+        return availableSpots;
+    }
+
+    public void setAvailableSpots(long availableSpots) {
+        this.availableSpots = availableSpots;
+    }
+
+    public long getTotalSpots() {
+        return totalSpots;
+    }
+
+    public void setTotalSpots(long totalSpots) {
+        this.totalSpots = totalSpots;
+    }
+}
@@ -0,0 +1,35 @@
+package learn.spring.smart_parking_lot.dto;
+
+import java.util.List;
+
+/**
+ * One page of a ticket search. nextCursor fetches the page after it and is null on the last page.
+ */
+public class TicketPage {
+    private List<TicketSummary> tickets;
+    private String nextCursor;
+
+    public TicketPage() {}
+
+    public TicketPage(List<TicketSummary> tickets, String nextCursor) {
+        this.tickets = tickets;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<TicketSummary> getTickets() {
+        return tickets;
+    }
+
+    public void setTickets(List<TicketSummary> tickets) {
+        this.tickets = tickets;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,131 @@
+package learn.spring.smart_parking_lot.dto;
+
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.model.VehicleType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One ticket with its vehicle and spot, read straight from a query rather than through managed entities.
+ */
+public class TicketSummary {
+    private Long id;
+    private String ticketNumber;
+    private String licensePlate;
+    private VehicleType vehicleType;
+    private String spotNumber;
+    private int floorNumber;
+    private LocalDateTime entryTime;
+    private LocalDateTime exitTime;
+    private TicketStatus status;
+    private BigDecimal fee;
+    private LocalDateTime paymentTime;
+
+    public TicketSummary() {}
+
+    public TicketSummary(Long id, String ticketNumber, String licensePlate, VehicleType vehicleType, String spotNumber,
+                         int floorNumber, LocalDateTime entryTime, LocalDateTime exitTime, TicketStatus status,
+                         BigDecimal fee, LocalDateTime paymentTime) {
+        this.id = id;
+        this.ticketNumber = ticketNumber;
+        this.licensePlate = licensePlate;
+        this.vehicleType = vehicleType;
+        this.spotNumber = spotNumber;
+        this.floorNumber = floorNumber;
+        this.entryTime = entryTime;
+        this.exitTime = exitTime;
+        this.status = status;
+        this.fee = fee;
+        this.paymentTime = paymentTime;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTicketNumber() {
+        return ticketNumber;
+    }
+
+    public void setTicketNumber(String ticketNumber) {
+        this.ticketNumber = ticketNumber;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = licensePlate;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public void setVehicleType(VehicleType vehicleType) {
+        this.vehicleType = vehicleType;
+    }
+
+    public String getSpotNumber() {
+        return spotNumber;
+    }
+
+    public void setSpotNumber(String spotNumber) {
+        this.spotNumber = spotNumber;
+    }
+
+    public int getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(int floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public LocalDateTime getEntryTime() {
+        return entryTime;
+    }
+
+    public void setEntryTime(LocalDateTime entryTime) {
+        this.entryTime = entryTime;
+    }
+
+    public LocalDateTime getExitTime() {
+        return exitTime;
+    }
+
+    public void setExitTime(LocalDateTime exitTime) {
+        this.exitTime = exitTime;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TicketStatus status) {
+        this.status = status;
+    }
+
+    public BigDecimal getFee() {
+        return fee;
+    }
+
+    public void setFee(BigDecimal fee) {
+        this.fee = fee;
+    }
+
+    public LocalDateTime getPaymentTime() {
+        return paymentTime;
+    }
+
+    public void setPaymentTime(LocalDateTime paymentTime) {
+        this.paymentTime = paymentTime;
+    }
+}
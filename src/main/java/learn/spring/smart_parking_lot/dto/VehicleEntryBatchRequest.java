@@ -0,0 +1,27 @@
+package learn.spring.smart_parking_lot.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class VehicleEntryBatchRequest {
+    @NotEmpty(message = "At least one vehicle is required")
+    @Size(max = 1000, message = "A batch can contain at most 1000 vehicles")
+    private List<@Valid VehicleEntryRequest> vehicles;
+
+    public VehicleEntryBatchRequest() {}
+
+    public VehicleEntryBatchRequest(List<VehicleEntryRequest> vehicles) {
+        this.vehicles = vehicles;
+    }
+
+    public List<VehicleEntryRequest> getVehicles() {
+        return vehicles;
+    }
+
+    public void setVehicles(List<VehicleEntryRequest> vehicles) {
+        this.vehicles = vehicles;
+    }
+}
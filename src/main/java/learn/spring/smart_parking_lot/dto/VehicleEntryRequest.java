@@ -1,5 +1,6 @@
 package learn.spring.smart_parking_lot.dto;
 
+import learn.spring.smart_parking_lot.model.Vehicle;
 import learn.spring.smart_parking_lot.model.VehicleType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -16,7 +17,7 @@ public class VehicleEntryRequest {
     public VehicleEntryRequest() {}
 
     public VehicleEntryRequest(String licensePlate, VehicleType vehicleType, String ownerName) {
-        this.licensePlate = licensePlate;
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
         this.vehicleType = vehicleType;
         this.ownerName = ownerName;
     }
@@ -26,7 +27,7 @@ public class VehicleEntryRequest {
     }
 
     public void setLicensePlate(String licensePlate) {
-        this.licensePlate = licensePlate;
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
     }
 
     public VehicleType getVehicleType() {
@@ -1,5 +1,6 @@
 package learn.spring.smart_parking_lot.dto;
 
+import learn.spring.smart_parking_lot.model.Vehicle;
 import jakarta.validation.constraints.NotBlank;
 
 public class VehicleExitRequest {
@@ -9,7 +10,7 @@ public class VehicleExitRequest {
     public VehicleExitRequest() {}
 
     public VehicleExitRequest(String licensePlate) {
-        this.licensePlate = licensePlate;
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
     }
 
     public String getLicensePlate() {
@@ -17,6 +18,6 @@ public class VehicleExitRequest {
     }
 
     public void setLicensePlate(String licensePlate) {
-        this.licensePlate = licensePlate;
+        this.licensePlate = Vehicle.normalizeLicensePlate(licensePlate);
     }
 }
@@ -32,6 +32,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
     
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<ParkingResponse> handleReservationNotFoundException(ReservationNotFoundException ex) {
+        ParkingResponse response = ParkingResponse.failure(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(ParkingLotException.class)
     public ResponseEntity<ParkingResponse> handleParkingLotException(ParkingLotException ex) {
         ParkingResponse response = ParkingResponse.failure(ex.getMessage());
@@ -0,0 +1,7 @@
+package learn.spring.smart_parking_lot.exception;
+
+public class ReservationNotFoundException extends ParkingLotException {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package learn.spring.smart_parking_lot.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of a running application instance, used to split floors evenly between live instances.
+ */
+@Entity
+@Table(name = "cluster_members")
+public class ClusterMember {
+    @Id
+    @Column(name = "instance_id")
+    private String instanceId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public ClusterMember() {}
+
+    public ClusterMember(String instanceId, LocalDateTime heartbeatAt) {
+        this.instanceId = instanceId;
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    // Getters and Setters
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
@@ -3,16 +3,22 @@ package learn.spring.smart_parking_lot.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.TenantId;
 
 @Entity
-@Table(name = "floors")
+@Table(name = "floors", uniqueConstraints = @UniqueConstraint(columnNames = {"lot_id", "floor_number"}))
 public class Floor {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Set from the current lot when the row is inserted; every query sees only the current lot's rows
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
     @NotNull(message = "Floor number is required")
-    @Column(name = "floor_number", unique = true, nullable = false)
+    @Column(name = "floor_number", nullable = false)
     @Min(value = 1, message = "Floor number must be at least 1")
     private Integer floorNumber;
 
@@ -47,6 +53,10 @@ public class Floor {
         this.id = id;
     }
 
+    public String getLotId() {
+        return lotId;
+    }
+
     public Integer getFloorNumber() {
         return floorNumber;
     }
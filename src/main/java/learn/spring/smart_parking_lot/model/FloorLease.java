@@ -0,0 +1,81 @@
+package learn.spring.smart_parking_lot.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which application instance may allocate spots on a floor of a lot, and until when.
+ */
+@Entity
+@Table(name = "floor_leases", uniqueConstraints = @UniqueConstraint(columnNames = {"lot_id", "floor_number"}))
+public class FloorLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
+    @Column(name = "floor_number", nullable = false)
+    private Integer floorNumber;
+
+    // Null while nobody holds the floor
+    @Column(name = "owner_id")
+    private String ownerId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public FloorLease() {}
+
+    public FloorLease(Integer floorNumber, LocalDateTime expiresAt) {
+        this.floorNumber = floorNumber;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public Integer getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(Integer floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "FloorLease{" +
+                "lotId='" + lotId + '\'' +
+                ", floorNumber=" + floorNumber +
+                ", ownerId='" + ownerId + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
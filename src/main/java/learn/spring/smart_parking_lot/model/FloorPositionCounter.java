@@ -0,0 +1,67 @@
+package learn.spring.smart_parking_lot.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * The last position handed out along one floor of a lot, whatever the spot type.
+ */
+@Entity
+@Table(name = "floor_position_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"lot_id", "floor_number"}))
+public class FloorPositionCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
+    @Column(name = "floor_number", nullable = false)
+    private Integer floorNumber;
+
+    @Column(name = "last_position", nullable = false)
+    private Integer lastPosition;
+
+    public FloorPositionCounter() {}
+
+    public FloorPositionCounter(Integer floorNumber, Integer lastPosition) {
+        this.floorNumber = floorNumber;
+        this.lastPosition = lastPosition;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public Integer getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(Integer floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public Integer getLastPosition() {
+        return lastPosition;
+    }
+
+    public void setLastPosition(Integer lastPosition) {
+        this.lastPosition = lastPosition;
+    }
+
+    @Override
+    public String toString() {
+        return "FloorPositionCounter{" +
+                "lotId='" + lotId + '\'' +
+                ", floorNumber=" + floorNumber +
+                ", lastPosition=" + lastPosition +
+                '}';
+    }
+}
@@ -3,16 +3,23 @@ package learn.spring.smart_parking_lot.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.TenantId;
 
 @Entity
-@Table(name = "parking_spots")
+@Table(name = "parking_spots", uniqueConstraints = @UniqueConstraint(columnNames = {"lot_id", "spot_number"}))
 public class ParkingSpot {
+    // Pooled sequence ids let Hibernate batch spot inserts when a floor is provisioned
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parking_spot_seq")
+    @SequenceGenerator(name = "parking_spot_seq", sequenceName = "parking_spot_seq", allocationSize = 50)
     private Long id;
 
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
     @NotNull(message = "Spot number is required")
-    @Column(name = "spot_number", unique = true, nullable = false)
+    @Column(name = "spot_number", nullable = false)
     private String spotNumber;
 
     @Min(value = 1, message = "Floor must be at least 1")
@@ -24,10 +31,16 @@ public class ParkingSpot {
     @Column(name = "spot_type", nullable = false)
     private ParkingSpotType spotType;
 
+    // Order of the spot along its floor; spots of one type with consecutive positions are adjacent
+    @Column(name = "spot_position")
+    private Integer position;
+
     @Column(name = "is_available", nullable = false)
     private Boolean isAvailable = true;
 
-    @OneToOne(mappedBy = "parkingSpot", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Owning side, so loading a spot never has to look up its ticket; set on every spot the ticket holds
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_ticket_id")
     private ParkingTicket currentTicket;
 
     public ParkingSpot() {}
@@ -39,6 +52,11 @@ public class ParkingSpot {
         this.isAvailable = true;
     }
 
+    public ParkingSpot(String spotNumber, Integer floor, ParkingSpotType spotType, Integer position) {
+        this(spotNumber, floor, spotType);
+        this.position = position;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -48,6 +66,10 @@ public class ParkingSpot {
         this.id = id;
     }
 
+    public String getLotId() {
+        return lotId;
+    }
+
     public String getSpotNumber() {
         return spotNumber;
     }
@@ -72,6 +94,14 @@ public class ParkingSpot {
         this.spotType = spotType;
     }
 
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
     public Boolean getIsAvailable() {
         return isAvailable;
     }
@@ -104,6 +134,7 @@ public class ParkingSpot {
                 ", spotNumber='" + spotNumber + '\'' +
                 ", floor=" + floor +
                 ", spotType=" + spotType +
+                ", position=" + position +
                 ", isAvailable=" + isAvailable +
                 '}';
     }
@@ -3,17 +3,30 @@ package learn.spring.smart_parking_lot.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.hibernate.annotations.TenantId;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "parking_tickets")
+// Ticket search pages through a lot's tickets in (entry_time, id) order, with or without a status filter
+@Table(name = "parking_tickets", indexes = {
+    @Index(name = "idx_parking_tickets_entry_time_id", columnList = "lot_id, entry_time, id"),
+    @Index(name = "idx_parking_tickets_status_entry_time_id", columnList = "lot_id, status, entry_time, id")
+})
 public class ParkingTicket {
+    // Pooled sequence ids let Hibernate batch ticket inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parking_ticket_seq")
+    @SequenceGenerator(name = "parking_ticket_seq", sequenceName = "parking_ticket_seq", allocationSize = 50)
     private Long id;
 
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
     @NotNull(message = "Ticket number is required")
     @Column(name = "ticket_number", unique = true, nullable = false)
     private String ticketNumber;
@@ -23,11 +36,20 @@ public class ParkingTicket {
     @JoinColumn(name = "vehicle_id", nullable = false)
     private Vehicle vehicle;
 
+    // Many-to-one: a spot keeps the tickets of every vehicle that has parked in it
     @NotNull(message = "Parking spot is required")
-    @OneToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parking_spot_id", nullable = false)
     private ParkingSpot parkingSpot;
 
+    // Every spot held by the ticket, starting with parkingSpot; more than one for vehicles that need a run of spots
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "ticket_spots",
+        joinColumns = @JoinColumn(name = "ticket_id"),
+        inverseJoinColumns = @JoinColumn(name = "parking_spot_id"))
+    @OrderBy("position ASC")
+    private List<ParkingSpot> spots = new ArrayList<>();
+
     @NotNull(message = "Entry time is required")
     @Column(name = "entry_time", nullable = false)
     private LocalDateTime entryTime;
@@ -53,10 +75,16 @@ public class ParkingTicket {
         this.ticketNumber = ticketNumber;
         this.vehicle = vehicle;
         this.parkingSpot = parkingSpot;
+        this.spots.add(parkingSpot);
         this.entryTime = entryTime;
         this.status = TicketStatus.ACTIVE;
     }
 
+    public ParkingTicket(String ticketNumber, Vehicle vehicle, List<ParkingSpot> spots, LocalDateTime entryTime) {
+        this(ticketNumber, vehicle, spots.get(0), entryTime);
+        this.spots.addAll(spots.subList(1, spots.size()));
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -66,6 +94,10 @@ public class ParkingTicket {
         this.id = id;
     }
 
+    public String getLotId() {
+        return lotId;
+    }
+
     public String getTicketNumber() {
         return ticketNumber;
     }
@@ -90,6 +122,14 @@ public class ParkingTicket {
         this.parkingSpot = parkingSpot;
     }
 
+    public List<ParkingSpot> getSpots() {
+        return spots;
+    }
+
+    public void setSpots(List<ParkingSpot> spots) {
+        this.spots = spots;
+    }
+
     public LocalDateTime getEntryTime() {
         return entryTime;
     }
@@ -0,0 +1,162 @@
+package learn.spring.smart_parking_lot.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reservations", indexes = {
+    @Index(name = "idx_reservations_plate_status", columnList = "lot_id, license_plate, status"),
+    @Index(name = "idx_reservations_status_start", columnList = "lot_id, status, start_time")
+})
+public class Reservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
+    @NotNull(message = "Reservation number is required")
+    @Column(name = "reservation_number", unique = true, nullable = false)
+    private String reservationNumber;
+
+    @NotBlank(message = "License plate is required")
+    @Column(name = "license_plate", nullable = false)
+    private String licensePlate;
+
+    @NotNull(message = "Spot type is required")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "spot_type", nullable = false)
+    private ParkingSpotType spotType;
+
+    // Floor whose capacity the reservation holds
+    @NotNull(message = "Floor number is required")
+    @Column(name = "floor_number", nullable = false)
+    private Integer floorNumber;
+
+    @NotNull(message = "Start time is required")
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @NotNull(message = "End time is required")
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @NotNull(message = "Status is required")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status = ReservationStatus.CONFIRMED;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Reservation() {}
+
+    public Reservation(String reservationNumber, String licensePlate, ParkingSpotType spotType, Integer floorNumber,
+                       LocalDateTime startTime, LocalDateTime endTime) {
+        this.reservationNumber = reservationNumber;
+        this.licensePlate = licensePlate;
+        this.spotType = spotType;
+        this.floorNumber = floorNumber;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = ReservationStatus.CONFIRMED;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public String getReservationNumber() {
+        return reservationNumber;
+    }
+
+    public void setReservationNumber(String reservationNumber) {
+        this.reservationNumber = reservationNumber;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public void setLicensePlate(String licensePlate) {
+        this.licensePlate = licensePlate;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public Integer getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(Integer floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{" +
+                "id=" + id +
+                ", reservationNumber='" + reservationNumber + '\'' +
+                ", licensePlate='" + licensePlate + '\'' +
+                ", spotType=" + spotType +
+                ", floorNumber=" + floorNumber +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", status=" + status +
+                '}';
+    }
+}
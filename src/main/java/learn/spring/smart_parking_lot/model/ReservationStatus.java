@@ -0,0 +1,8 @@
+package learn.spring.smart_parking_lot.model;
+
+public enum ReservationStatus {
+    CONFIRMED,
+    FULFILLED,
+    CANCELLED,
+    EXPIRED
+}
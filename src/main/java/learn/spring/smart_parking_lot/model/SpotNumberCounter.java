@@ -0,0 +1,81 @@
+package learn.spring.smart_parking_lot.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * The last spot number handed out for one spot type on one floor of a lot.
+ */
+@Entity
+@Table(name = "spot_number_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"lot_id", "floor_number", "spot_type"}))
+public class SpotNumberCounter {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "lot_id", nullable = false, updatable = false)
+    private String lotId;
+
+    @Column(name = "floor_number", nullable = false)
+    private Integer floorNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "spot_type", nullable = false)
+    private ParkingSpotType spotType;
+
+    @Column(name = "last_number", nullable = false)
+    private Integer lastNumber;
+
+    public SpotNumberCounter() {}
+
+    public SpotNumberCounter(Integer floorNumber, ParkingSpotType spotType, Integer lastNumber) {
+        this.floorNumber = floorNumber;
+        this.spotType = spotType;
+        this.lastNumber = lastNumber;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public Integer getFloorNumber() {
+        return floorNumber;
+    }
+
+    public void setFloorNumber(Integer floorNumber) {
+        this.floorNumber = floorNumber;
+    }
+
+    public ParkingSpotType getSpotType() {
+        return spotType;
+    }
+
+    public void setSpotType(ParkingSpotType spotType) {
+        this.spotType = spotType;
+    }
+
+    public Integer getLastNumber() {
+        return lastNumber;
+    }
+
+    public void setLastNumber(Integer lastNumber) {
+        this.lastNumber = lastNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "SpotNumberCounter{" +
+                "lotId='" + lotId + '\'' +
+                ", floorNumber=" + floorNumber +
+                ", spotType=" + spotType +
+                ", lastNumber=" + lastNumber +
+                '}';
+    }
+}
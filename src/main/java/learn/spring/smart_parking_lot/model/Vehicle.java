@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.Locale;
+
 @Entity
 @Table(name = "vehicles")
 public class Vehicle {
@@ -25,6 +27,14 @@ public class Vehicle {
 
     public Vehicle() {}
 
+    /**
+     * The form every plate is stored and looked up in: trimmed and upper-cased, so "ka-01 " and
+     * "KA-01" are the same vehicle. Requests normalize plates as they come in.
+     */
+    public static String normalizeLicensePlate(String licensePlate) {
+        return licensePlate == null ? null : licensePlate.trim().toUpperCase(Locale.ROOT);
+    }
+
     public Vehicle(String licensePlate, VehicleType vehicleType, String ownerName) {
         this.licensePlate = licensePlate;
         this.vehicleType = vehicleType;
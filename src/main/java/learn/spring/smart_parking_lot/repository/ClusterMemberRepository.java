@@ -0,0 +1,15 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.ClusterMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClusterMemberRepository extends JpaRepository<ClusterMember, String> {
+    @Query("SELECT COUNT(m) FROM ClusterMember m WHERE m.heartbeatAt > :since")
+    long countAliveSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,59 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.FloorLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Updates and inserts name the lot; queries are limited to the current lot by Hibernate
+@Repository
+public interface FloorLeaseRepository extends JpaRepository<FloorLease, Long> {
+    /**
+     * Add an unowned lease row for a floor. Fails with a constraint violation if another instance added it first.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO floor_leases (lot_id, floor_number, expires_at) VALUES (:lotId, :floorNumber, :expiresAt)", nativeQuery = true)
+    void insertUnowned(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Query("SELECT l.floorNumber FROM FloorLease l WHERE l.ownerId = :ownerId ORDER BY l.floorNumber ASC")
+    List<Integer> findFloorsOwnedBy(@Param("ownerId") String ownerId);
+    
+    @Query("SELECT l.floorNumber FROM FloorLease l WHERE l.ownerId IS NULL OR l.expiresAt < :now ORDER BY l.floorNumber ASC")
+    List<Integer> findClaimableFloors(@Param("now") LocalDateTime now);
+    
+    /**
+     * Extend every lease the instance still holds. Leases taken over by another instance are not touched.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FloorLease l SET l.expiresAt = :expiresAt WHERE l.lotId = :lotId AND l.ownerId = :ownerId")
+    int renewAll(@Param("lotId") String lotId, @Param("ownerId") String ownerId, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Take a floor that is free or whose lease has run out. Returns 0 if another instance got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FloorLease l SET l.ownerId = :ownerId, l.expiresAt = :expiresAt " +
+           "WHERE l.lotId = :lotId AND l.floorNumber = :floorNumber AND (l.ownerId IS NULL OR l.expiresAt < :now)")
+    int acquire(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber, @Param("ownerId") String ownerId,
+                @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE FloorLease l SET l.ownerId = NULL WHERE l.lotId = :lotId AND l.floorNumber = :floorNumber AND l.ownerId = :ownerId")
+    int release(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber, @Param("ownerId") String ownerId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE FloorLease l SET l.ownerId = NULL WHERE l.lotId = :lotId AND l.ownerId = :ownerId")
+    int releaseAll(@Param("lotId") String lotId, @Param("ownerId") String ownerId);
+}
@@ -0,0 +1,37 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.FloorPositionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Updates, deletes and inserts name the lot; queries are limited to the current lot by Hibernate
+@Repository
+public interface FloorPositionCounterRepository extends JpaRepository<FloorPositionCounter, Long> {
+    /**
+     * Take the next position on a floor. The row stays locked until the transaction ends, so
+     * concurrent callers get distinct positions. Returns 0 if the floor has no counter.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE FloorPositionCounter c SET c.lastPosition = c.lastPosition + 1 " +
+           "WHERE c.lotId = :lotId AND c.floorNumber = :floorNumber")
+    int increment(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber);
+    
+    @Query("SELECT c.lastPosition FROM FloorPositionCounter c WHERE c.floorNumber = :floorNumber")
+    Integer findLastPosition(@Param("floorNumber") Integer floorNumber);
+    
+    /**
+     * Add a counter row. Fails with a constraint violation if another transaction added it first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO floor_position_counters (lot_id, floor_number, last_position) " +
+                   "VALUES (:lotId, :floorNumber, :lastPosition)", nativeQuery = true)
+    void insert(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber,
+                @Param("lastPosition") Integer lastPosition);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM FloorPositionCounter c WHERE c.lotId = :lotId AND c.floorNumber = :floorNumber")
+    int deleteByFloor(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber);
+}
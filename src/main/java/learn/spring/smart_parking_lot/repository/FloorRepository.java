@@ -19,5 +19,8 @@ public interface FloorRepository extends JpaRepository<Floor, Long> {
     @Query("SELECT f.floorNumber FROM Floor f WHERE f.underMaintenance = false ORDER BY f.floorNumber ASC")
     List<Integer> findAvailableFloorNumbers();
     
+    @Query("SELECT f.floorNumber FROM Floor f ORDER BY f.floorNumber ASC")
+    List<Integer> findAllFloorNumbers();
+    
     boolean existsByFloorNumber(Integer floorNumber);
 }
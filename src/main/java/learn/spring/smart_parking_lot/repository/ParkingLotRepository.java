@@ -0,0 +1,9 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.ParkingLot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ParkingLotRepository extends JpaRepository<ParkingLot, String> {
+}
@@ -1,14 +1,23 @@
 package learn.spring.smart_parking_lot.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import learn.spring.smart_parking_lot.dto.LayoutSpot;
 import learn.spring.smart_parking_lot.model.ParkingSpot;
 import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long> {
@@ -20,6 +29,22 @@ public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long>
     
     List<ParkingSpot> findByFloor(Integer floor);
     
+    long countByFloor(Integer floor);
+    
+    List<ParkingSpot> findByIsAvailableTrueAndFloorIn(Collection<Integer> floors);
+    
+    @Query("SELECT COALESCE(MAX(p.position), 0) FROM ParkingSpot p WHERE p.floor = :floor")
+    int findMaxPosition(@Param("floor") Integer floor);
+    
+    /**
+     * Every spot in floor and position order, read through a cursor as projections. Must be read and
+     * closed within a transaction.
+     */
+    @Query("SELECT new learn.spring.smart_parking_lot.dto.LayoutSpot(p.floor, p.spotNumber, p.spotType, p.position) " +
+           "FROM ParkingSpot p ORDER BY p.floor, p.position, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<LayoutSpot> streamLayout();
+    
     @Query("SELECT COUNT(p) FROM ParkingSpot p WHERE p.isAvailable = true")
     long countAvailableSpots();
     
@@ -34,4 +59,49 @@ public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long>
     
     @Query("SELECT p FROM ParkingSpot p WHERE p.isAvailable = true AND p.spotType = :spotType AND p.floor NOT IN :excludedFloors ORDER BY p.floor ASC, p.spotNumber ASC")
     List<ParkingSpot> findAvailableSpotsByTypeExcludingFloors(@Param("spotType") ParkingSpotType spotType, @Param("excludedFloors") List<Integer> excludedFloors);
+    
+    /**
+     * Spot count of one type per floor, as (floor, count) rows ordered by floor.
+     */
+    @Query("SELECT p.floor, COUNT(p) FROM ParkingSpot p WHERE p.spotType = :spotType GROUP BY p.floor ORDER BY p.floor ASC")
+    List<Object[]> countSpotsByFloor(@Param("spotType") ParkingSpotType spotType);
+    
+    /**
+     * Total and free spot counts, as (spot type, floor, total, available) rows.
+     */
+    @Query("SELECT p.spotType, p.floor, COUNT(p), SUM(CASE WHEN p.isAvailable = true THEN 1 ELSE 0 END) FROM ParkingSpot p GROUP BY p.spotType, p.floor")
+    List<Object[]> countSpotsByTypeAndFloor();
+
+    /**
+     * Spot counts for floor status, as (floor, spot type, total, available, under maintenance, maintenance reason)
+     * rows ordered by floor. Maintenance columns come from the floor's Floor row and are null if it has none.
+     */
+    @Query("SELECT p.floor, p.spotType, COUNT(p), SUM(CASE WHEN p.isAvailable = true THEN 1 ELSE 0 END), f.underMaintenance, f.maintenanceReason " +
+           "FROM ParkingSpot p LEFT JOIN Floor f ON f.floorNumber = p.floor AND f.lotId = p.lotId " +
+           "GROUP BY p.floor, p.spotType, f.underMaintenance, f.maintenanceReason ORDER BY p.floor ASC")
+    List<Object[]> countSpotsForFloorStatus();
+    
+    @Query("SELECT p.floor, p.spotType, COUNT(p), SUM(CASE WHEN p.isAvailable = true THEN 1 ELSE 0 END), f.underMaintenance, f.maintenanceReason " +
+           "FROM ParkingSpot p LEFT JOIN Floor f ON f.floorNumber = p.floor AND f.lotId = p.lotId WHERE p.floor = :floor " +
+           "GROUP BY p.floor, p.spotType, f.underMaintenance, f.maintenanceReason")
+    List<Object[]> countSpotsForFloorStatus(@Param("floor") Integer floor);
+    
+    /**
+     * Atomically mark a spot occupied. Returns 0 if another transaction got there first.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ParkingSpot p SET p.isAvailable = false WHERE p.id = :id AND p.isAvailable = true")
+    int claimIfAvailable(@Param("id") Long id);
+    
+    /**
+     * SELECT ... FOR UPDATE of the floor's free spots. Rows held by an uncommitted claim are waited
+     * for and re-checked, so a spot claimed meanwhile is not returned.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id FROM ParkingSpot p WHERE p.floor = :floor AND p.isAvailable = true")
+    List<Long> lockAvailableSpotIdsOnFloor(@Param("floor") Integer floor);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ParkingSpot p SET p.isAvailable = true WHERE p.id IN :ids")
+    int releaseAll(@Param("ids") Collection<Long> ids);
 }
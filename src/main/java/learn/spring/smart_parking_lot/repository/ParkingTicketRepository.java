@@ -1,30 +1,69 @@
 package learn.spring.smart_parking_lot.repository;
 
+import jakarta.persistence.QueryHint;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
 import learn.spring.smart_parking_lot.model.ParkingTicket;
 import learn.spring.smart_parking_lot.model.TicketStatus;
 import learn.spring.smart_parking_lot.model.Vehicle;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ParkingTicketRepository extends JpaRepository<ParkingTicket, Long> {
+public interface ParkingTicketRepository extends JpaRepository<ParkingTicket, Long>, TicketSearchRepository {
     Optional<ParkingTicket> findByTicketNumber(String ticketNumber);
     
     Optional<ParkingTicket> findByVehicleAndStatus(Vehicle vehicle, TicketStatus status);
     
+    @EntityGraph(attributePaths = "vehicle")
     List<ParkingTicket> findByStatus(TicketStatus status);
     
+    boolean existsByIdAndStatus(Long id, TicketStatus status);
+    
     List<ParkingTicket> findByEntryTimeBetween(LocalDateTime startTime, LocalDateTime endTime);
     
     @Query("SELECT pt FROM ParkingTicket pt WHERE pt.vehicle.licensePlate = :licensePlate AND pt.status = :status")
     Optional<ParkingTicket> findByLicensePlateAndStatus(@Param("licensePlate") String licensePlate, @Param("status") TicketStatus status);
     
+    @Query("SELECT pt.vehicle.licensePlate FROM ParkingTicket pt WHERE pt.vehicle.licensePlate IN :licensePlates AND pt.status = :status")
+    List<String> findLicensePlatesWithStatus(@Param("licensePlates") Collection<String> licensePlates, @Param("status") TicketStatus status);
+    
+    /**
+     * Everything an exit touches in one query.
+     */
+    @Query("SELECT pt FROM ParkingTicket pt JOIN FETCH pt.vehicle JOIN FETCH pt.parkingSpot LEFT JOIN FETCH pt.spots WHERE pt.id = :id")
+    Optional<ParkingTicket> findForExit(@Param("id") Long id);
+    
+    @Query("SELECT pt FROM ParkingTicket pt JOIN FETCH pt.vehicle v JOIN FETCH pt.parkingSpot LEFT JOIN FETCH pt.spots WHERE v.licensePlate IN :licensePlates AND pt.status = :status")
+    List<ParkingTicket> findByLicensePlateInAndStatus(@Param("licensePlates") Collection<String> licensePlates, @Param("status") TicketStatus status);
+    
+    @Query("SELECT pt FROM ParkingTicket pt JOIN FETCH pt.vehicle JOIN FETCH pt.parkingSpot LEFT JOIN FETCH pt.spots WHERE pt.id IN :ids")
+    List<ParkingTicket> findWithSpotsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Tickets entered in [from, to) as flat rows, fetched from the cursor a page at a time. Rows are
+     * not entities, so nothing accumulates in the persistence context. Must be read and closed within
+     * a transaction.
+     */
+    @Query("SELECT new learn.spring.smart_parking_lot.dto.TicketSummary(pt.id, pt.ticketNumber, v.licensePlate, v.vehicleType, " +
+           "s.spotNumber, s.floor, pt.entryTime, pt.exitTime, pt.status, pt.fee, pt.paymentTime) " +
+           "FROM ParkingTicket pt JOIN pt.vehicle v JOIN pt.parkingSpot s " +
+           "WHERE pt.status = :status AND pt.entryTime >= :from AND pt.entryTime < :to ORDER BY pt.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<TicketSummary> streamForExport(@Param("status") TicketStatus status,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+    
     @Query("SELECT COUNT(pt) FROM ParkingTicket pt WHERE pt.status = 'ACTIVE'")
     long countActiveTickets();
 }
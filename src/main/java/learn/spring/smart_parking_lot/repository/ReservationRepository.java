@@ -0,0 +1,36 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.model.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    Optional<Reservation> findByReservationNumber(String reservationNumber);
+    
+    List<Reservation> findByStatusInAndEndTimeAfter(Collection<ReservationStatus> statuses, LocalDateTime time);
+    
+    List<Reservation> findByStatusAndStartTimeBefore(ReservationStatus status, LocalDateTime time);
+    
+    @Query("SELECT COUNT(r) > 0 FROM Reservation r WHERE r.licensePlate = :licensePlate AND r.status = 'CONFIRMED' AND r.startTime < :endTime AND r.endTime > :startTime")
+    boolean existsConfirmedOverlapping(@Param("licensePlate") String licensePlate,
+                                       @Param("startTime") LocalDateTime startTime,
+                                       @Param("endTime") LocalDateTime endTime);
+    
+    /**
+     * Confirmed reservations a vehicle arriving now can use: the window has opened (allowing for early
+     * arrival) and has not ended.
+     */
+    @Query("SELECT r FROM Reservation r WHERE r.licensePlate IN :licensePlates AND r.status = 'CONFIRMED' AND r.startTime <= :latestStart AND r.endTime > :now ORDER BY r.startTime ASC")
+    List<Reservation> findArrivals(@Param("licensePlates") Collection<String> licensePlates,
+                                   @Param("latestStart") LocalDateTime latestStart,
+                                   @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,39 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.SpotNumberCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Updates, deletes and inserts name the lot; queries are limited to the current lot by Hibernate
+@Repository
+public interface SpotNumberCounterRepository extends JpaRepository<SpotNumberCounter, Long> {
+    /**
+     * Take the next number for a floor and spot type. The row stays locked until the transaction ends,
+     * so concurrent callers get distinct numbers. Returns 0 if the floor has no counter for the type.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SpotNumberCounter c SET c.lastNumber = c.lastNumber + 1 " +
+           "WHERE c.lotId = :lotId AND c.floorNumber = :floorNumber AND c.spotType = :spotType")
+    int increment(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber,
+                  @Param("spotType") ParkingSpotType spotType);
+    
+    @Query("SELECT c.lastNumber FROM SpotNumberCounter c WHERE c.floorNumber = :floorNumber AND c.spotType = :spotType")
+    Integer findLastNumber(@Param("floorNumber") Integer floorNumber, @Param("spotType") ParkingSpotType spotType);
+    
+    /**
+     * Add a counter row. Fails with a constraint violation if another transaction added it first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO spot_number_counters (lot_id, floor_number, spot_type, last_number) " +
+                   "VALUES (:lotId, :floorNumber, :spotType, :lastNumber)", nativeQuery = true)
+    void insert(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber,
+                @Param("spotType") String spotType, @Param("lastNumber") Integer lastNumber);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM SpotNumberCounter c WHERE c.lotId = :lotId AND c.floorNumber = :floorNumber")
+    int deleteByFloor(@Param("lotId") String lotId, @Param("floorNumber") Integer floorNumber);
+}
@@ -0,0 +1,16 @@
+package learn.spring.smart_parking_lot.repository;
+
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketSearchRepository {
+    
+    /**
+     * Up to limit tickets matching the request's filters, in (entry time, id) order, starting after
+     * the given ticket position; afterEntryTime and afterId are null for the first page.
+     */
+    List<TicketSummary> search(TicketSearchRequest filters, LocalDateTime afterEntryTime, Long afterId, int limit);
+}
@@ -0,0 +1,70 @@
+package learn.spring.smart_parking_lot.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (seek) pagination: a page starts from the last ticket of the previous one rather than an
+ * offset, so the database seeks into the (entry_time, id) index and page 1000 costs what page 1 does.
+ * Only the filters actually given go into the query, so each combination gets its own plan.
+ */
+class TicketSearchRepositoryImpl implements TicketSearchRepository {
+    
+    private final EntityManager entityManager;
+    
+    TicketSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+    
+    @Override
+    public List<TicketSummary> search(TicketSearchRequest filters, LocalDateTime afterEntryTime, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+            "SELECT new learn.spring.smart_parking_lot.dto.TicketSummary(pt.id, pt.ticketNumber, v.licensePlate, v.vehicleType, " +
+            "s.spotNumber, s.floor, pt.entryTime, pt.exitTime, pt.status, pt.fee, pt.paymentTime) " +
+            "FROM ParkingTicket pt JOIN pt.vehicle v JOIN pt.parkingSpot s WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (filters.getFrom() != null) {
+            jpql.append(" AND pt.entryTime >= :from");
+            parameters.put("from", filters.getFrom());
+        }
+        if (filters.getTo() != null) {
+            jpql.append(" AND pt.entryTime < :to");
+            parameters.put("to", filters.getTo());
+        }
+        if (filters.getFloor() != null) {
+            jpql.append(" AND s.floor = :floor");
+            parameters.put("floor", filters.getFloor());
+        }
+        if (filters.getVehicleType() != null) {
+            jpql.append(" AND v.vehicleType = :vehicleType");
+            parameters.put("vehicleType", filters.getVehicleType());
+        }
+        if (filters.getStatus() != null) {
+            jpql.append(" AND pt.status = :status");
+            parameters.put("status", filters.getStatus());
+        }
+        if (afterEntryTime != null) {
+            // The plain range condition is what lets the database seek instead of scanning from the start
+            jpql.append(" AND pt.entryTime >= :afterEntryTime AND (pt.entryTime > :afterEntryTime OR pt.id > :afterId)");
+            parameters.put("afterEntryTime", afterEntryTime);
+            parameters.put("afterId", afterId);
+        }
+        // Hibernate limits the query to the current lot. Naming the lot, and the status when it is
+        // filtered on, in the sort key keeps it a prefix of an index, so the database reads the index in
+        // order and stops after one page instead of sorting every matching ticket
+        jpql.append(filters.getStatus() != null
+            ? " ORDER BY pt.lotId, pt.status, pt.entryTime, pt.id"
+            : " ORDER BY pt.lotId, pt.entryTime, pt.id");
+        
+        TypedQuery<TicketSummary> query = entityManager.createQuery(jpql.toString(), TicketSummary.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -4,10 +4,13 @@ import learn.spring.smart_parking_lot.model.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     Optional<Vehicle> findByLicensePlate(String licensePlate);
     boolean existsByLicensePlate(String licensePlate);
+    List<Vehicle> findByLicensePlateIn(Collection<String> licensePlates);
 }
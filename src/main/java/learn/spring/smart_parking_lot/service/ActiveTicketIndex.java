@@ -0,0 +1,129 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.ParkingTicket;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active ticket of every parked vehicle, keyed by license plate, so entry can reject
+ * a vehicle that is already parked and exit can find its ticket without querying by plate.
+ * Plates arrive normalized from the request (see {@link learn.spring.smart_parking_lot.model.Vehicle#normalizeLicensePlate}),
+ * so the index uses the same key as the vehicle rows and the ticket queries.
+ * A plate is held as soon as an entry starts, which also keeps two concurrent entries for the
+ * same vehicle apart, and is let go once its exit commits.
+ *
+ * In cluster mode other instances park and exit vehicles too, so the index is not complete:
+ * a missing plate must be confirmed against the database and a held ticket may have been closed elsewhere.
+ */
+@Component
+@LotScoped
+public class ActiveTicketIndex {
+
+    // Held by an entry whose ticket has not been saved yet
+    private static final ActiveTicket PENDING = new ActiveTicket(null, false);
+
+    private final ParkingTicketRepository ticketRepository;
+    private final boolean complete;
+    private final ConcurrentHashMap<String, ActiveTicket> tickets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ActiveTicketIndex(ParkingTicketRepository ticketRepository,
+                             @Value("${parking.cluster.enabled:false}") boolean clustered) {
+        this.ticketRepository = ticketRepository;
+        this.complete = !clustered;
+    }
+
+    @EventListener(LotOpenedEvent.class)
+    public void rebuild() {
+        tickets.clear();
+        for (ParkingTicket ticket : ticketRepository.findByStatus(TicketStatus.ACTIVE)) {
+            tickets.put(ticket.getVehicle().getLicensePlate(), new ActiveTicket(ticket.getId(), false));
+        }
+    }
+
+    /**
+     * Whether a missing plate means the vehicle is not parked anywhere.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Optional<ActiveTicket> find(String licensePlate) {
+        ActiveTicket ticket = tickets.get(licensePlate);
+        return ticket == null || ticket.ticketId() == null ? Optional.empty() : Optional.of(ticket);
+    }
+
+    /**
+     * Hold a plate for a vehicle that is about to be parked. Returns false if it already has an active ticket
+     * or another entry for it is in progress. The hold is dropped if the transaction rolls back.
+     */
+    public boolean claim(String licensePlate) {
+        ActiveTicket existing = tickets.putIfAbsent(licensePlate, PENDING);
+        if (existing != null && !(isStale(existing) && tickets.replace(licensePlate, existing, PENDING))) {
+            return false;
+        }
+        TransactionCallbacks.afterRollback(() -> tickets.remove(licensePlate, PENDING));
+        return true;
+    }
+
+    /**
+     * Record the ticket of a vehicle claimed with {@link #claim}.
+     */
+    public void publish(String licensePlate, ParkingTicket ticket) {
+        Long ticketId = ticket.getId();
+        tickets.replace(licensePlate, PENDING, new ActiveTicket(ticketId, false));
+        // By ticket id, as an exit in the same transaction may have marked it exiting
+        TransactionCallbacks.afterRollback(() -> tickets.computeIfPresent(licensePlate, (plate, active) ->
+            ticketId.equals(active.ticketId()) ? null : active));
+    }
+
+    /**
+     * Give up a claim whose vehicle could not be parked.
+     */
+    public void release(String licensePlate) {
+        tickets.remove(licensePlate, PENDING);
+    }
+
+    /**
+     * Mark a vehicle as leaving and return its ticket, or empty if it has none here or is already leaving.
+     * The plate is freed once the exit commits and restored if it rolls back.
+     */
+    public Optional<ActiveTicket> beginExit(String licensePlate) {
+        while (true) {
+            ActiveTicket active = tickets.get(licensePlate);
+            if (active == null || active.ticketId() == null || active.exiting()) {
+                return Optional.empty();
+            }
+            ActiveTicket exiting = new ActiveTicket(active.ticketId(), true);
+            if (tickets.replace(licensePlate, active, exiting)) {
+                TransactionCallbacks.afterCommit(() -> tickets.remove(licensePlate, exiting));
+                TransactionCallbacks.afterRollback(() -> tickets.replace(licensePlate, exiting, active));
+                return Optional.of(active);
+            }
+        }
+    }
+
+    /**
+     * Undo {@link #beginExit} for an exit that failed without rolling back.
+     */
+    public void cancelExit(String licensePlate) {
+        tickets.computeIfPresent(licensePlate, (plate, ticket) ->
+            ticket.exiting() ? new ActiveTicket(ticket.ticketId(), false) : ticket);
+    }
+
+    // Only possible in cluster mode, when another instance has closed the ticket
+    private boolean isStale(ActiveTicket ticket) {
+        return !complete && ticket.ticketId() != null && !ticket.exiting()
+            && !ticketRepository.existsByIdAndStatus(ticket.ticketId(), TicketStatus.ACTIVE);
+    }
+
+    public record ActiveTicket(Long ticketId, boolean exiting) {}
+}
@@ -0,0 +1,87 @@
+package learn.spring.smart_parking_lot.service;
+
+/**
+ * Reserved spot count per time slot for one spot type on one floor. A segment tree with
+ * range add and range max, so booking a window and asking for its peak are both O(log n)
+ * however many reservations overlap it.
+ */
+final class CapacityCalendar {
+
+    private final int slots;
+    // max[node] is the peak of the node's range, including every add applied to the whole range
+    private final int[] max;
+    // Adds that covered the node's whole range and were not pushed to its children
+    private final int[] added;
+
+    CapacityCalendar(int slots) {
+        this.slots = slots;
+        this.max = new int[4 * slots];
+        this.added = new int[4 * slots];
+    }
+
+    int slots() {
+        return slots;
+    }
+
+    /**
+     * Peak reserved count over slots [from, to).
+     */
+    synchronized int max(int from, int to) {
+        return from >= to ? 0 : max(1, 0, slots - 1, from, to - 1);
+    }
+
+    synchronized int at(int slot) {
+        return max(1, 0, slots - 1, slot, slot);
+    }
+
+    /**
+     * Add delta to every slot in [from, to).
+     */
+    synchronized void add(int from, int to, int delta) {
+        if (from < to) {
+            add(1, 0, slots - 1, from, to - 1, delta);
+        }
+    }
+
+    /**
+     * Reserve one more spot over [from, to) if every slot stays within capacity.
+     */
+    synchronized boolean addIfBelow(int from, int to, int capacity) {
+        if (from >= to || max(from, to) >= capacity) {
+            return false;
+        }
+        add(from, to, 1);
+        return true;
+    }
+
+    private int max(int node, int low, int high, int from, int to) {
+        if (from <= low && high <= to) {
+            return max[node];
+        }
+        int mid = (low + high) >>> 1;
+        int best = Integer.MIN_VALUE;
+        if (from <= mid) {
+            best = max(2 * node, low, mid, from, to);
+        }
+        if (to > mid) {
+            best = Math.max(best, max(2 * node + 1, mid + 1, high, from, to));
+        }
+        return best + added[node];
+    }
+
+    private void add(int node, int low, int high, int from, int to, int delta) {
+        if (from <= low && high <= to) {
+            max[node] += delta;
+            added[node] += delta;
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (from <= mid) {
+            add(2 * node, low, mid, from, to, delta);
+        }
+        if (to > mid) {
+            add(2 * node + 1, mid + 1, high, from, to, delta);
+        }
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]) + added[node];
+    }
+}
@@ -0,0 +1,176 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.annotation.PreDestroy;
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.ClusterMember;
+import learn.spring.smart_parking_lot.model.FloorLease;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.repository.ClusterMemberRepository;
+import learn.spring.smart_parking_lot.repository.FloorLeaseRepository;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Cluster mode: several instances share one database, and each allocates only from the floors it
+ * holds a lease on, so instances never contend for the same stripe of spots. Every renewal the
+ * instance heartbeats, extends its leases, takes or gives back floors to hold its fair share of
+ * the live instances, and reloads its floors' free spots from the database to pick up exits
+ * handled elsewhere. Leases of an instance that stops renewing run out and are taken over.
+ * The conditional claim on the spot row still guards against two instances briefly believing
+ * they hold the same floor.
+ *
+ * Each lot has its own manager and leases, renewed one lot after another; an instance's fair share
+ * is taken of every lot's floors.
+ */
+@Component
+@LotScoped
+@ConditionalOnProperty(name = "parking.cluster.enabled", havingValue = "true")
+public class FloorLeaseManager {
+
+    private static final Logger log = LoggerFactory.getLogger(FloorLeaseManager.class);
+
+    private final FloorLeaseRepository floorLeaseRepository;
+    private final ClusterMemberRepository clusterMemberRepository;
+    private final FloorRepository floorRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final SpotAvailabilityIndex availabilityIndex;
+    private final MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+    private final OccupancyCounters occupancyCounters;
+    private final String lotId = LotContext.currentLot();
+    private final String instanceId;
+    private final long leaseSeconds;
+    private volatile Set<Integer> ownedFloors = Set.of();
+
+    @Autowired
+    public FloorLeaseManager(FloorLeaseRepository floorLeaseRepository,
+                             ClusterMemberRepository clusterMemberRepository,
+                             FloorRepository floorRepository,
+                             ParkingSpotRepository parkingSpotRepository,
+                             SpotAvailabilityIndex availabilityIndex,
+                             MaintenanceFloorSnapshot maintenanceFloorSnapshot,
+                             OccupancyCounters occupancyCounters,
+                             @Value("${parking.cluster.instance-id:${random.uuid}}") String instanceId,
+                             @Value("${parking.cluster.lease-seconds:30}") long leaseSeconds) {
+        this.floorLeaseRepository = floorLeaseRepository;
+        this.clusterMemberRepository = clusterMemberRepository;
+        this.floorRepository = floorRepository;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.maintenanceFloorSnapshot = maintenanceFloorSnapshot;
+        this.occupancyCounters = occupancyCounters;
+        this.instanceId = instanceId;
+        this.leaseSeconds = leaseSeconds;
+        // Nothing may be allocated until the first renewal has leased some floors
+        availabilityIndex.setAllocatableFloors(Set.of());
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public Set<Integer> getOwnedFloors() {
+        return ownedFloors;
+    }
+
+    @EventListener(LotOpenedEvent.class)
+    public synchronized void renewLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(leaseSeconds);
+        clusterMemberRepository.save(new ClusterMember(instanceId, now));
+
+        List<Integer> floors = floorRepository.findAllFloorNumbers();
+        createMissingLeases(floors, now);
+
+        floorLeaseRepository.renewAll(lotId, instanceId, expiresAt);
+        Set<Integer> owned = new TreeSet<>(floorLeaseRepository.findFloorsOwnedBy(instanceId));
+        owned.retainAll(floors);
+
+        long liveInstances = Math.max(1, clusterMemberRepository.countAliveSince(now.minusSeconds(leaseSeconds)));
+        int fairShare = (int) ((floors.size() + liveInstances - 1) / liveInstances);
+        if (owned.size() < fairShare) {
+            for (Integer floor : floorLeaseRepository.findClaimableFloors(now)) {
+                if (owned.size() >= fairShare) {
+                    break;
+                }
+                if (floors.contains(floor) && floorLeaseRepository.acquire(lotId, floor, instanceId, expiresAt, now) == 1) {
+                    owned.add(floor);
+                }
+            }
+        } else if (owned.size() > fairShare) {
+            // Hand the highest floors to instances that joined since; stop allocating from them first
+            List<Integer> surplus = new ArrayList<>(owned).subList(fairShare, owned.size());
+            Set<Integer> kept = new HashSet<>(owned);
+            surplus.forEach(kept::remove);
+            availabilityIndex.setAllocatableFloors(kept);
+            surplus.forEach(floor -> floorLeaseRepository.release(lotId, floor, instanceId));
+            owned = kept;
+        }
+
+        resync(owned);
+        if (!owned.equals(ownedFloors)) {
+            log.info("Instance {} now holds floors {} of lot {}", instanceId, owned, lotId);
+        }
+        ownedFloors = Set.copyOf(owned);
+    }
+
+    /**
+     * Give every floor back so the other instances can take over without waiting for the leases to run out.
+     */
+    @PreDestroy
+    public synchronized void releaseLeases() {
+        availabilityIndex.setAllocatableFloors(Set.of());
+        ownedFloors = Set.of();
+        floorLeaseRepository.releaseAll(lotId, instanceId);
+        clusterMemberRepository.deleteById(instanceId);
+    }
+
+    // Reload free spots of the held floors, then allow allocation from exactly those floors
+    private void resync(Set<Integer> owned) {
+        if (!owned.isEmpty()) {
+            Map<Integer, List<ParkingSpot>> freeSpots = parkingSpotRepository.findByIsAvailableTrueAndFloorIn(owned)
+                .stream()
+                .collect(Collectors.groupingBy(ParkingSpot::getFloor));
+            owned.forEach(floor -> availabilityIndex.replaceFloor(floor, freeSpots.getOrDefault(floor, List.of())));
+        }
+        availabilityIndex.setAllocatableFloors(owned);
+        // Maintenance may have been switched on another instance
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        maintenanceFloorSnapshot.reload();
+        if (!maintenanceFloorSnapshot.current().equals(maintenanceFloors)) {
+            occupancyCounters.floorChanged();
+        }
+    }
+
+    private void createMissingLeases(List<Integer> floors, LocalDateTime now) {
+        Set<Integer> leased = floorLeaseRepository.findAll().stream()
+            .map(FloorLease::getFloorNumber)
+            .collect(Collectors.toSet());
+        for (Integer floor : floors) {
+            if (!leased.contains(floor)) {
+                try {
+                    floorLeaseRepository.insertUnowned(lotId, floor, now);
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created it first
+                }
+            }
+        }
+    }
+}
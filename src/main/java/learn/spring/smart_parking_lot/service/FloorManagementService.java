@@ -10,9 +10,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,11 +22,25 @@ public class FloorManagementService {
     
     private final ParkingSpotRepository parkingSpotRepository;
     private final FloorRepository floorRepository;
+    private final SpotAvailabilityIndex availabilityIndex;
+    private final MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+    private final OccupancyCounters occupancyCounters;
+    private final SpotProvisioner spotProvisioner;
+    private final SpotNumberAllocator spotNumberAllocator;
     
     @Autowired
-    public FloorManagementService(ParkingSpotRepository parkingSpotRepository, FloorRepository floorRepository) {
+    public FloorManagementService(ParkingSpotRepository parkingSpotRepository, FloorRepository floorRepository,
+                                  SpotAvailabilityIndex availabilityIndex,
+                                  MaintenanceFloorSnapshot maintenanceFloorSnapshot,
+                                  OccupancyCounters occupancyCounters, SpotProvisioner spotProvisioner,
+                                  SpotNumberAllocator spotNumberAllocator) {
         this.parkingSpotRepository = parkingSpotRepository;
         this.floorRepository = floorRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.maintenanceFloorSnapshot = maintenanceFloorSnapshot;
+        this.occupancyCounters = occupancyCounters;
+        this.spotProvisioner = spotProvisioner;
+        this.spotNumberAllocator = spotNumberAllocator;
     }
     
     /**
@@ -42,54 +57,41 @@ public class FloorManagementService {
         Floor floor = new Floor(floorNumber);
         floorRepository.save(floor);
         
-        createFloorSpots(floorNumber, motorcycleSpots, compactSpots, largeSpots);
+        publishAfterCommit(spotProvisioner.createFloorSpots(floorNumber, motorcycleSpots, compactSpots, largeSpots));
+        TransactionCallbacks.afterCommit(() -> maintenanceFloorSnapshot.remove(floorNumber));
     }
     
     /**
      * Add individual parking spots to an existing floor
      */
     public ParkingSpot addParkingSpot(int floorNumber, ParkingSpotType spotType) {
-        // Find the next available spot number for this floor
-        List<ParkingSpot> floorSpots = parkingSpotRepository.findByFloor(floorNumber);
-        int nextSpotNumber = floorSpots.size() + 1;
-        
-        String typePrefix = getTypePrefix(spotType);
-        String spotNumber = String.format("%d-%s-%02d", floorNumber, typePrefix, nextSpotNumber);
-        
-        // Ensure unique spot number
-        while (parkingSpotRepository.findBySpotNumber(spotNumber).isPresent()) {
-            nextSpotNumber++;
-            spotNumber = String.format("%d-%s-%02d", floorNumber, typePrefix, nextSpotNumber);
-        }
+        // Position and number come from the floor's counters, so the floor's spots are never loaded
+        int position = spotNumberAllocator.nextPosition(floorNumber);
+        int nextSpotNumber = spotNumberAllocator.nextNumber(floorNumber, spotType);
+        String spotNumber = SpotNumberAllocator.formatSpotNumber(floorNumber, spotType, nextSpotNumber);
         
-        ParkingSpot newSpot = new ParkingSpot(spotNumber, floorNumber, spotType);
-        return parkingSpotRepository.save(newSpot);
+        ParkingSpot newSpot = parkingSpotRepository.save(new ParkingSpot(spotNumber, floorNumber, spotType, position));
+        publishAfterCommit(List.of(newSpot));
+        return newSpot;
     }
     
     /**
      * Get status for all floors
      */
     public List<FloorStatus> getAllFloorsStatus() {
-        // Group spots by floor
-        Map<Integer, List<ParkingSpot>> spotsByFloor = parkingSpotRepository.findAll()
-            .stream()
-            .collect(Collectors.groupingBy(ParkingSpot::getFloor));
-        
-        return spotsByFloor.entrySet().stream()
-            .map(entry -> createFloorStatus(entry.getKey(), entry.getValue()))
-            .sorted((f1, f2) -> Integer.compare(f1.getFloorNumber(), f2.getFloorNumber()))
-            .collect(Collectors.toList());
+        // One aggregate query over spots joined with their floors, instead of loading every spot
+        return toFloorStatuses(parkingSpotRepository.countSpotsForFloorStatus());
     }
     
     /**
      * Get status for a specific floor
      */
     public FloorStatus getFloorStatus(int floorNumber) {
-        List<ParkingSpot> floorSpots = parkingSpotRepository.findByFloor(floorNumber);
-        if (floorSpots.isEmpty()) {
+        List<FloorStatus> statuses = toFloorStatuses(parkingSpotRepository.countSpotsForFloorStatus(floorNumber));
+        if (statuses.isEmpty()) {
             throw new IllegalArgumentException("Floor " + floorNumber + " does not exist");
         }
-        return createFloorStatus(floorNumber, floorSpots);
+        return statuses.get(0);
     }
     
     /**
@@ -104,6 +106,8 @@ public class FloorManagementService {
         }
         
         parkingSpotRepository.delete(spot);
+        withdrawUntilRollback(List.of(spot));
+        occupancyCounters.spotsRemoved(List.of(spot));
     }
     
     /**
@@ -123,7 +127,10 @@ public class FloorManagementService {
         
         // Remove spots and floor
         parkingSpotRepository.deleteAll(floorSpots);
+        withdrawUntilRollback(floorSpots);
+        occupancyCounters.spotsRemoved(floorSpots);
         floorRepository.findByFloorNumber(floorNumber).ifPresent(floorRepository::delete);
+        TransactionCallbacks.afterCommit(() -> maintenanceFloorSnapshot.remove(floorNumber));
     }
     
     /**
@@ -133,18 +140,42 @@ public class FloorManagementService {
         Floor floor = floorRepository.findByFloorNumber(floorNumber)
             .orElse(new Floor(floorNumber)); // Create if doesn't exist
         
-        // Check if there are occupied spots when setting maintenance mode
+        // Closing a floor to allocation takes effect at once and is undone on rollback;
+        // reopening it waits for the commit
         if (underMaintenance) {
-            List<ParkingSpot> floorSpots = parkingSpotRepository.findByFloor(floorNumber);
-            boolean hasOccupiedSpots = floorSpots.stream().anyMatch(spot -> !spot.getIsAvailable());
-            if (hasOccupiedSpots) {
-                throw new IllegalStateException("Cannot set floor " + floorNumber + 
-                    " to maintenance mode - some spots are currently occupied");
+            boolean added = maintenanceFloorSnapshot.add(floorNumber);
+            if (added) {
+                TransactionCallbacks.afterRollback(() -> maintenanceFloorSnapshot.remove(floorNumber));
             }
+            // Only check for occupied spots once new entries are kept off the floor
+            try {
+                checkNoOccupiedSpots(floorNumber);
+            } catch (RuntimeException e) {
+                if (added) {
+                    maintenanceFloorSnapshot.remove(floorNumber);
+                }
+                throw e;
+            }
+        } else {
+            TransactionCallbacks.afterCommit(() -> maintenanceFloorSnapshot.remove(floorNumber));
         }
         
         floor.setMaintenanceMode(underMaintenance, reason);
         floorRepository.save(floor);
+        occupancyCounters.floorChanged();
+    }
+    
+    /**
+     * Lock every free spot on the floor, waiting out entries that are claiming one right now. A
+     * claim that commits leaves its spot occupied and out of the locked set; an entry that
+     * claims after the lock is taken finds the floor in the maintenance snapshot and backs off.
+     */
+    private void checkNoOccupiedSpots(int floorNumber) {
+        List<Long> freeSpotIds = parkingSpotRepository.lockAvailableSpotIdsOnFloor(floorNumber);
+        if (freeSpotIds.size() < parkingSpotRepository.countByFloor(floorNumber)) {
+            throw new IllegalStateException("Cannot set floor " + floorNumber + 
+                " to maintenance mode - some spots are currently occupied");
+        }
     }
     
     /**
@@ -164,92 +195,63 @@ public class FloorManagementService {
         return floorRepository.findAvailableFloorNumbers();
     }
     
-    private void createFloorSpots(int floor, int motorcycleSpots, int compactSpots, int largeSpots) {
-        int spotCounter = 1;
-        
-        // Create motorcycle spots
-        for (int i = 0; i < motorcycleSpots; i++) {
-            String spotNumber = String.format("%d-M-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.MOTORCYCLE);
-            parkingSpotRepository.save(spot);
-        }
-        
-        // Create compact spots
-        for (int i = 0; i < compactSpots; i++) {
-            String spotNumber = String.format("%d-C-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.COMPACT);
-            parkingSpotRepository.save(spot);
-        }
-        
-        // Create large spots
-        for (int i = 0; i < largeSpots; i++) {
-            String spotNumber = String.format("%d-L-%02d", floor, spotCounter++);
-            ParkingSpot spot = new ParkingSpot(spotNumber, floor, ParkingSpotType.LARGE);
-            parkingSpotRepository.save(spot);
-        }
-        
-        System.out.println("Floor " + floor + ": " + motorcycleSpots + " motorcycle, " + 
-                          compactSpots + " compact, " + largeSpots + " large spots created");
+    /**
+     * New spots become allocatable only once the transaction that created them commits.
+     */
+    private void publishAfterCommit(List<ParkingSpot> spots) {
+        List<SpotAvailabilityIndex.SpotEntry> entries = spots.stream().map(SpotAvailabilityIndex.SpotEntry::of).toList();
+        TransactionCallbacks.afterCommit(() -> entries.forEach(availabilityIndex::add));
+        occupancyCounters.spotsAdded(spots);
     }
     
-    private FloorStatus createFloorStatus(int floorNumber, List<ParkingSpot> spots) {
-        FloorStatus status = new FloorStatus();
-        status.setFloorNumber(floorNumber);
-        status.setTotalSpots(spots.size());
-        
-        // Check if floor is under maintenance
-        Optional<Floor> floor = floorRepository.findByFloorNumber(floorNumber);
-        if (floor.isPresent()) {
-            status.setUnderMaintenance(floor.get().getUnderMaintenance());
-            status.setMaintenanceReason(floor.get().getMaintenanceReason());
-        } else {
-            status.setUnderMaintenance(false);
-            status.setMaintenanceReason(null);
-        }
-        
-        long availableSpots = spots.stream().filter(ParkingSpot::getIsAvailable).count();
-        
-        // If floor is under maintenance, show 0 available spots
-        if (status.isUnderMaintenance()) {
-            status.setAvailableSpots(0);
-            status.setOccupiedSpots(spots.size());
-        } else {
-            status.setAvailableSpots((int) availableSpots);
-            status.setOccupiedSpots((int) (spots.size() - availableSpots));
-        }
-        
-        // Count by type
-        Map<ParkingSpotType, Long> spotsByType = spots.stream()
-            .collect(Collectors.groupingBy(ParkingSpot::getSpotType, Collectors.counting()));
-        
-        status.setMotorcycleSpots(spotsByType.getOrDefault(ParkingSpotType.MOTORCYCLE, 0L).intValue());
-        status.setCompactSpots(spotsByType.getOrDefault(ParkingSpotType.COMPACT, 0L).intValue());
-        status.setLargeSpots(spotsByType.getOrDefault(ParkingSpotType.LARGE, 0L).intValue());
-        
-        // Count available by type (only if not under maintenance)
-        if (!status.isUnderMaintenance()) {
-            Map<ParkingSpotType, Long> availableByType = spots.stream()
-                .filter(ParkingSpot::getIsAvailable)
-                .collect(Collectors.groupingBy(ParkingSpot::getSpotType, Collectors.counting()));
-            
-            status.setAvailableMotorcycleSpots(availableByType.getOrDefault(ParkingSpotType.MOTORCYCLE, 0L).intValue());
-            status.setAvailableCompactSpots(availableByType.getOrDefault(ParkingSpotType.COMPACT, 0L).intValue());
-            status.setAvailableLargeSpots(availableByType.getOrDefault(ParkingSpotType.LARGE, 0L).intValue());
-        } else {
-            // If under maintenance, show 0 available spots
-            status.setAvailableMotorcycleSpots(0);
-            status.setAvailableCompactSpots(0);
-            status.setAvailableLargeSpots(0);
-        }
-        
-        return status;
+    /**
+     * Removed spots leave the index immediately and come back if the removal rolls back.
+     */
+    private void withdrawUntilRollback(List<ParkingSpot> spots) {
+        List<SpotAvailabilityIndex.SpotEntry> entries = spots.stream()
+            .map(SpotAvailabilityIndex.SpotEntry::of)
+            .filter(availabilityIndex::remove)
+            .toList();
+        TransactionCallbacks.afterRollback(() -> entries.forEach(availabilityIndex::add));
     }
     
-    private String getTypePrefix(ParkingSpotType spotType) {
-        return switch (spotType) {
-            case MOTORCYCLE -> "M";
-            case COMPACT -> "C";
-            case LARGE -> "L";
-        };
+    /**
+     * Build floor statuses from (floor, spot type, total, available, under maintenance, maintenance reason) rows.
+     */
+    private List<FloorStatus> toFloorStatuses(List<Object[]> rows) {
+        Map<Integer, FloorStatus> statuses = new TreeMap<>();
+        for (Object[] row : rows) {
+            FloorStatus status = statuses.computeIfAbsent((Integer) row[0], floorNumber -> {
+                FloorStatus created = new FloorStatus();
+                created.setFloorNumber(floorNumber);
+                // Check if floor is under maintenance; a floor without a Floor row is not
+                created.setUnderMaintenance(Boolean.TRUE.equals(row[4]));
+                created.setMaintenanceReason((String) row[5]);
+                return created;
+            });
+            ParkingSpotType spotType = (ParkingSpotType) row[1];
+            int total = ((Number) row[2]).intValue();
+            // If floor is under maintenance, show 0 available spots
+            int available = status.isUnderMaintenance() ? 0 : ((Number) row[3]).intValue();
+            
+            status.setTotalSpots(status.getTotalSpots() + total);
+            status.setAvailableSpots(status.getAvailableSpots() + available);
+            status.setOccupiedSpots(status.getOccupiedSpots() + total - available);
+            switch (spotType) {
+                case MOTORCYCLE -> {
+                    status.setMotorcycleSpots(total);
+                    status.setAvailableMotorcycleSpots(available);
+                }
+                case COMPACT -> {
+                    status.setCompactSpots(total);
+                    status.setAvailableCompactSpots(available);
+                }
+                case LARGE -> {
+                    status.setLargeSpots(total);
+                    status.setAvailableLargeSpots(available);
+                }
+            }
+        }
+        return new ArrayList<>(statuses.values());
     }
 }
@@ -0,0 +1,359 @@
+package learn.spring.smart_parking_lot.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import learn.spring.smart_parking_lot.dto.LayoutSpot;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.model.Floor;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Imports and exports the lot layout: the floor, number, type and position of every spot. Both
+ * directions stream. An import parses one record at a time and writes spots in insert batches, so it
+ * holds one batch of entities however large the file is; an export writes spots as they come off a
+ * database cursor.
+ */
+@Service
+public class LayoutService {
+
+    private static final String CSV_HEADER = "floor,spot_number,spot_type,position";
+
+    public enum LayoutFormat {
+        CSV("text/csv"),
+        JSON("application/json");
+
+        private final String contentType;
+
+        LayoutFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Optional<LayoutFormat> parse(String format) {
+            try {
+                return Optional.of(valueOf(format.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    public record ImportSummary(int floors, long spots) {}
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final FloorRepository floorRepository;
+    private final SpotProvisioner spotProvisioner;
+    private final SpotNumberAllocator spotNumberAllocator;
+    private final SpotAvailabilityIndex availabilityIndex;
+    private final MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+    private final OccupancyCounters occupancyCounters;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate reloadTransaction;
+
+    @Autowired
+    public LayoutService(ParkingSpotRepository parkingSpotRepository, FloorRepository floorRepository,
+                         SpotProvisioner spotProvisioner, SpotNumberAllocator spotNumberAllocator,
+                         SpotAvailabilityIndex availabilityIndex, MaintenanceFloorSnapshot maintenanceFloorSnapshot,
+                         OccupancyCounters occupancyCounters, ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.floorRepository = floorRepository;
+        this.spotProvisioner = spotProvisioner;
+        this.spotNumberAllocator = spotNumberAllocator;
+        this.availabilityIndex = availabilityIndex;
+        this.maintenanceFloorSnapshot = maintenanceFloorSnapshot;
+        this.occupancyCounters = occupancyCounters;
+        this.objectMapper = objectMapper;
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reloadTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Add the floors and spots of a layout. Every floor in it must be new. CSV has the header
+     * floor,spot_number,spot_type,position; JSON is an array of {floor, spotNumber, spotType, position}
+     * objects. The first invalid record fails the whole import and nothing is kept.
+     */
+    @Transactional
+    public ImportSummary importLayout(LayoutFormat format, InputStream in) throws IOException {
+        LayoutImport layoutImport = new LayoutImport();
+        if (format == LayoutFormat.CSV) {
+            readCsv(in, layoutImport);
+        } else {
+            readJson(in, layoutImport);
+        }
+        return layoutImport.finish();
+    }
+
+    /**
+     * Write every spot in floor and position order, in the format importLayout reads.
+     *
+     * @return the number of spots written
+     */
+    @Transactional(readOnly = true)
+    public long exportLayout(LayoutFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+        try (Stream<LayoutSpot> spots = parkingSpotRepository.streamLayout()) {
+            if (format == LayoutFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            } else {
+                writer.write('[');
+            }
+            Iterator<LayoutSpot> iterator = spots.iterator();
+            while (iterator.hasNext()) {
+                LayoutSpot spot = iterator.next();
+                if (format == LayoutFormat.CSV) {
+                    writeCsv(writer, spot);
+                } else {
+                    writer.write(count == 0 ? "\n" : ",\n");
+                    writer.write(objectMapper.writeValueAsString(spot));
+                }
+                count++;
+            }
+        }
+        if (format == LayoutFormat.JSON) {
+            writer.write("\n]\n");
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void readCsv(InputStream in, LayoutImport layoutImport) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        String header = reader.readLine();
+        if (header == null || !header.trim().equalsIgnoreCase(CSV_HEADER)) {
+            throw new ParkingLotException("Layout CSV must start with the header " + CSV_HEADER);
+        }
+        long record = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            record++;
+            List<String> fields = splitCsvLine(line, record);
+            if (fields.size() != 4) {
+                throw invalidRecord(record, "expected 4 fields but found " + fields.size());
+            }
+            layoutImport.add(record, new LayoutSpot(parseNumber(fields.get(0), "floor", record), fields.get(1),
+                parseSpotType(fields.get(2), record), parseNumber(fields.get(3), "position", record)));
+        }
+    }
+
+    private void readJson(InputStream in, LayoutImport layoutImport) throws IOException {
+        long record = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ParkingLotException("Layout JSON must be an array of spots");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                record++;
+                layoutImport.add(record, objectMapper.readValue(parser, LayoutSpot.class));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw invalidRecord(record + 1, "expected a spot object");
+            }
+        } catch (JsonProcessingException e) {
+            throw invalidRecord(record, e.getOriginalMessage());
+        }
+    }
+
+    private void writeCsv(Writer writer, LayoutSpot spot) throws IOException {
+        writer.write(Integer.toString(spot.getFloor()));
+        writer.write(',');
+        TicketExportService.writeCsvField(writer, spot.getSpotNumber());
+        writer.write(',');
+        writer.write(spot.getSpotType().name());
+        writer.write(',');
+        if (spot.getPosition() != null) {
+            writer.write(Integer.toString(spot.getPosition()));
+        }
+        writer.write('\n');
+    }
+
+    // Fields may be quoted, with embedded quotes doubled, as the export writes them
+    private static List<String> splitCsvLine(String line, long record) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw invalidRecord(record, "unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Integer parseNumber(String value, String field, long record) {
+        if (value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw invalidRecord(record, field + " is not a number: " + value);
+        }
+    }
+
+    private static ParkingSpotType parseSpotType(String value, long record) {
+        if (value.isBlank()) {
+            return null;
+        }
+        try {
+            return ParkingSpotType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw invalidRecord(record, "unknown spot type: " + value);
+        }
+    }
+
+    private static ParkingLotException invalidRecord(long record, String problem) {
+        return new ParkingLotException("Layout record " + record + ": " + problem);
+    }
+
+    /**
+     * The state of one import: the batch being filled, the positions taken on each floor as one bit
+     * per position, the highest imported spot number of each type per floor and the number of spots of
+     * each type per floor. Nothing is kept per record, so memory does not grow with the size of the
+     * layout, only with its highest positions.
+     */
+    private class LayoutImport {
+        private final List<ParkingSpot> batch = new ArrayList<>(spotProvisioner.getBatchSize());
+        private final Map<Integer, BitSet> positions = new TreeMap<>();
+        private final Map<Integer, Map<ParkingSpotType, Integer>> lastNumbers = new TreeMap<>();
+        private final Map<ParkingSpotType, Map<Integer, Integer>> added = new EnumMap<>(ParkingSpotType.class);
+        private long spots;
+
+        void add(long record, LayoutSpot spot) {
+            if (spot.getFloor() == null || spot.getFloor() < 1) {
+                throw invalidRecord(record, "floor must be at least 1");
+            }
+            if (spot.getSpotNumber() == null || spot.getSpotNumber().isBlank()) {
+                throw invalidRecord(record, "spot number is required");
+            }
+            if (spot.getSpotType() == null) {
+                throw invalidRecord(record, "spot type is required");
+            }
+            if (spot.getPosition() == null || spot.getPosition() < 1) {
+                throw invalidRecord(record, "position must be at least 1");
+            }
+
+            BitSet taken = positions.get(spot.getFloor());
+            if (taken == null) {
+                addFloor(record, spot.getFloor());
+                taken = new BitSet();
+                positions.put(spot.getFloor(), taken);
+            }
+            // The free-run index keeps one spot per position, so a second one would never be offered to a bus
+            if (taken.get(spot.getPosition())) {
+                throw invalidRecord(record, "position " + spot.getPosition() + " on floor " + spot.getFloor() + " is already taken");
+            }
+            taken.set(spot.getPosition());
+            String spotNumber = spot.getSpotNumber().trim();
+            // Numbers in the generated form move the counters on, so addParkingSpot never hands them out again
+            SpotNumberAllocator.parseSpotNumber(spotNumber).ifPresent(parsed -> {
+                if (parsed.floor() != spot.getFloor()) {
+                    throw invalidRecord(record, "spot number " + spotNumber + " belongs to floor " + parsed.floor());
+                }
+                lastNumbers.computeIfAbsent(spot.getFloor(), floor -> new EnumMap<>(ParkingSpotType.class))
+                    .merge(parsed.spotType(), parsed.number(), Math::max);
+            });
+            added.computeIfAbsent(spot.getSpotType(), type -> new TreeMap<>()).merge(spot.getFloor(), 1, Integer::sum);
+            batch.add(new ParkingSpot(spotNumber, spot.getFloor(), spot.getSpotType(), spot.getPosition()));
+            if (batch.size() == spotProvisioner.getBatchSize()) {
+                insertBatch();
+            }
+        }
+
+        ImportSummary finish() {
+            insertBatch();
+            // Spots added later are placed after the imported positions and numbered after the imported numbers
+            positions.forEach((floor, taken) ->
+                spotNumberAllocator.startFloor(floor, taken.length() - 1, lastNumbers.getOrDefault(floor, Map.of())));
+            occupancyCounters.spotsAdded(added);
+            // New spots become allocatable only once the import commits, read back one floor at a time
+            Set<Integer> floors = Set.copyOf(positions.keySet());
+            TransactionCallbacks.afterCommit(() -> floors.forEach(floor -> reloadTransaction.executeWithoutResult(status ->
+                availabilityIndex.replaceFloor(floor, parkingSpotRepository.findByIsAvailableTrueAndFloorIn(List.of(floor))))));
+            return new ImportSummary(positions.size(), spots);
+        }
+
+        private void addFloor(long record, int floorNumber) {
+            if (floorRepository.existsByFloorNumber(floorNumber) || parkingSpotRepository.findMaxPosition(floorNumber) > 0) {
+                throw invalidRecord(record, "floor " + floorNumber + " already exists");
+            }
+            floorRepository.save(new Floor(floorNumber));
+            TransactionCallbacks.afterCommit(() -> maintenanceFloorSnapshot.remove(floorNumber));
+        }
+
+        private void insertBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                spotProvisioner.insertBatch(batch);
+            } catch (DataIntegrityViolationException e) {
+                throw new ParkingLotException("Layout records " + (spots + 1) + " to " + (spots + batch.size()) +
+                    " repeat an existing spot number");
+            }
+            spots += batch.size();
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package learn.spring.smart_parking_lot.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with log-spaced buckets, in the manner of HdrHistogram:
+ * every power of two is split into 32 linear sub-buckets, so a value is known to within about 3%
+ * whatever its magnitude. Values below 32 are counted exactly. Memory is fixed by the highest
+ * trackable value; larger values are counted in the last bucket.
+ *
+ * Recording is a single atomic increment. Reading takes a snapshot of the counts, which may miss
+ * values recorded concurrently but is otherwise consistent.
+ */
+public class LogHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+
+    public LogHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKETS) {
+            throw new IllegalArgumentException("Highest trackable value must be at least " + SUB_BUCKETS);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue) + 1);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Histogram values cannot be negative: " + value);
+        }
+        counts.incrementAndGet(bucketIndex(Math.min(value, highestTrackableValue)));
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    // Values below 32 map to themselves; above, the exponent picks a row of 32 and the top bits a column
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value that maps to the bucket
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Counts as of one moment. Snapshots of histograms with the same highest trackable value can be merged.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long totalCount;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * The highest value equivalent to the value at the given percentile (0-100), or 0 when empty.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueInBucket(i);
+                }
+            }
+            return highestValueInBucket(counts.length - 1);
+        }
+
+        public long getMaxValue() {
+            return getValueAtPercentile(100);
+        }
+
+        public Snapshot merge(Snapshot other) {
+            if (other.counts.length != counts.length) {
+                throw new IllegalArgumentException("Cannot merge histograms with different ranges");
+            }
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+    }
+}
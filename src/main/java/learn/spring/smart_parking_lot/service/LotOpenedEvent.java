@@ -0,0 +1,7 @@
+package learn.spring.smart_parking_lot.service;
+
+/**
+ * A lot starts being served: at startup for every stored lot, and when a lot is created. Published
+ * with the lot current, so lot-scoped listeners load that lot's state from the database.
+ */
+public record LotOpenedEvent(String lotId) {}
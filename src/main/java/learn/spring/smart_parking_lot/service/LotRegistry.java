@@ -0,0 +1,107 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.annotation.PreDestroy;
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.config.LotScope;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.model.ParkingLot;
+import learn.spring.smart_parking_lot.repository.ParkingLotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The lots this instance serves. Opening a lot loads its in-memory state, once at startup for every
+ * stored lot and again whenever a lot is created; requests for a lot that is not open are refused.
+ * The default lot always exists, and holds everything created before lots were introduced.
+ */
+@Service
+public class LotRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(LotRegistry.class);
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LotScope lotScope;
+    private final Set<String> openLots = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public LotRegistry(ParkingLotRepository parkingLotRepository, ApplicationEventPublisher eventPublisher,
+                       LotScope lotScope) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.eventPublisher = eventPublisher;
+        this.lotScope = lotScope;
+    }
+
+    /**
+     * Open every stored lot. Runs once the data initializer has finished.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void openLots() {
+        if (!parkingLotRepository.existsById(LotContext.DEFAULT_LOT)) {
+            parkingLotRepository.save(new ParkingLot(LotContext.DEFAULT_LOT, "Default lot"));
+        }
+        parkingLotRepository.findAll().forEach(lot -> open(lot.getId()));
+        log.info("Serving {} parking lots", openLots.size());
+    }
+
+    public List<ParkingLot> getLots() {
+        return parkingLotRepository.findAll(Sort.by("id"));
+    }
+
+    public boolean isOpen(String lotId) {
+        return openLots.contains(lotId);
+    }
+
+    public Set<String> getOpenLots() {
+        return Collections.unmodifiableSet(openLots);
+    }
+
+    /**
+     * Add an empty lot and start serving it; its floors are added through its own API paths.
+     */
+    public ParkingLot createLot(String lotId, String name) {
+        if (parkingLotRepository.existsById(lotId)) {
+            throw new ParkingLotException("Parking lot " + lotId + " already exists");
+        }
+        ParkingLot lot = parkingLotRepository.save(new ParkingLot(lotId, name));
+        open(lotId);
+        return lot;
+    }
+
+    /**
+     * Run a task once for every open lot, with that lot current. A failure in one lot is logged
+     * and does not keep the task from running for the others.
+     */
+    public void forEachLot(Runnable task) {
+        for (String lotId : openLots) {
+            try {
+                LotContext.run(lotId, task);
+            } catch (RuntimeException e) {
+                log.error("Task failed for parking lot {}", lotId, e);
+            }
+        }
+    }
+
+    // Lot-scoped beans are destroyed here, while the database they may write to is still up
+    @PreDestroy
+    public void close() {
+        openLots.clear();
+        lotScope.destroyAll();
+    }
+
+    private void open(String lotId) {
+        LotContext.run(lotId, () -> eventPublisher.publishEvent(new LotOpenedEvent(lotId)));
+        openLots.add(lotId);
+    }
+}
@@ -0,0 +1,85 @@
+package learn.spring.smart_parking_lot.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scheduled upkeep of each lot's state. Every run goes through the open lots one after another
+ * with the lot current, so the task count does not grow with the number of lots and each lot's
+ * beans are only ever touched for their own lot.
+ */
+@Component
+public class LotTasks {
+
+    private final LotRegistry lotRegistry;
+    private final OccupancyCounters occupancyCounters;
+    private final OccupancyHistory occupancyHistory;
+    private final OccupancyStream occupancyStream;
+    private final ReservationCalendar reservationCalendar;
+    private final ReservationService reservationService;
+    private final ObjectProvider<FloorLeaseManager> floorLeaseManager;
+
+    @Autowired
+    public LotTasks(LotRegistry lotRegistry, OccupancyCounters occupancyCounters, OccupancyHistory occupancyHistory,
+                    OccupancyStream occupancyStream, ReservationCalendar reservationCalendar, ReservationService reservationService,
+                    ObjectProvider<FloorLeaseManager> floorLeaseManager) {
+        this.lotRegistry = lotRegistry;
+        this.occupancyCounters = occupancyCounters;
+        this.occupancyHistory = occupancyHistory;
+        this.occupancyStream = occupancyStream;
+        this.reservationCalendar = reservationCalendar;
+        this.reservationService = reservationService;
+        this.floorLeaseManager = floorLeaseManager;
+    }
+
+    @Scheduled(fixedDelayString = "${parking.occupancy.reconcile-interval-ms:60000}",
+               initialDelayString = "${parking.occupancy.reconcile-interval-ms:60000}")
+    public void reconcileOccupancy() {
+        lotRegistry.forEachLot(occupancyCounters::reconcile);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.history.sample-interval-ms:5000}")
+    public void sampleOccupancyHistory() {
+        lotRegistry.forEachLot(occupancyHistory::sample);
+    }
+
+    // One coalescing window for every lot's occupancy stream
+    @Scheduled(fixedDelayString = "${parking.stream.coalesce-ms:250}",
+               initialDelayString = "${parking.stream.coalesce-ms:250}")
+    public void publishOccupancyChanges() {
+        lotRegistry.forEachLot(occupancyStream::publishChanges);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.stream.heartbeat-seconds:30}",
+               initialDelayString = "${parking.stream.heartbeat-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void sendStreamHeartbeats() {
+        lotRegistry.forEachLot(occupancyStream::sendHeartbeats);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.history.persist-interval-ms:300000}",
+               initialDelayString = "${parking.history.persist-interval-ms:300000}")
+    public void persistOccupancyHistory() {
+        lotRegistry.forEachLot(occupancyHistory::persist);
+    }
+
+    // Just after midnight, so every lot's reservation horizon keeps rolling forward
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rebuildReservationCalendars() {
+        lotRegistry.forEachLot(reservationCalendar::rebuild);
+    }
+
+    @Scheduled(fixedDelayString = "${parking.reservation.expiry-check-ms:60000}")
+    public void expireNoShows() {
+        lotRegistry.forEachLot(reservationService::expireNoShows);
+    }
+
+    // Only in cluster mode
+    @Scheduled(fixedDelayString = "${parking.cluster.renew-interval-ms:10000}")
+    public void renewFloorLeases() {
+        floorLeaseManager.ifAvailable(leases -> lotRegistry.forEachLot(leases::renewLeases));
+    }
+}
@@ -0,0 +1,63 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.Floor;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable set of floors under maintenance, read by every allocation without a database
+ * round-trip. Writers replace the whole set and publish it through a volatile field.
+ */
+@Component
+@LotScoped
+public class MaintenanceFloorSnapshot {
+
+    private final FloorRepository floorRepository;
+    private volatile Set<Integer> floors = Set.of();
+
+    @Autowired
+    public MaintenanceFloorSnapshot(FloorRepository floorRepository) {
+        this.floorRepository = floorRepository;
+    }
+
+    @EventListener(LotOpenedEvent.class)
+    public synchronized void reload() {
+        floors = floorRepository.findByUnderMaintenanceTrue()
+            .stream()
+            .map(Floor::getFloorNumber)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public Set<Integer> current() {
+        return floors;
+    }
+
+    /**
+     * @return false if the floor was already in the snapshot
+     */
+    synchronized boolean add(int floorNumber) {
+        if (floors.contains(floorNumber)) {
+            return false;
+        }
+        Set<Integer> next = new HashSet<>(floors);
+        next.add(floorNumber);
+        floors = Set.copyOf(next);
+        return true;
+    }
+
+    synchronized void remove(int floorNumber) {
+        if (!floors.contains(floorNumber)) {
+            return;
+        }
+        Set<Integer> next = new HashSet<>(floors);
+        next.remove(floorNumber);
+        floors = Set.copyOf(next);
+    }
+}
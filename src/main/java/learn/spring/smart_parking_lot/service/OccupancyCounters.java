@@ -0,0 +1,322 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Spot and ticket counts per spot type and floor, kept in step with committed changes so the lot
+ * status is answered without a query. Every path that adds, removes, occupies or frees spots, or
+ * opens or closes tickets, records the change here; it is applied once the transaction commits.
+ *
+ * A scheduled reconciler compares the counters with the database and corrects any drift. A single
+ * instance should never drift, so drift there is logged as a warning; in cluster mode it is how
+ * changes made by the other instances reach this one.
+ */
+@Component
+@LotScoped
+public class OccupancyCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyCounters.class);
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final ParkingTicketRepository ticketRepository;
+    private final boolean clustered;
+    private final Map<ParkingSpotType, ConcurrentHashMap<Integer, SpotCounts>> counts = new EnumMap<>(ParkingSpotType.class);
+    private final LongAdder activeTickets = new LongAdder();
+    // Bumped on every applied change, so a reconciliation can tell a change raced with its query
+    private final AtomicLong version = new AtomicLong();
+    // Changes whose transaction is committing but which are not applied yet: the database is ahead of the counters
+    private final AtomicInteger committing = new AtomicInteger();
+    // Distinguishes versions of different runs, which all start from zero
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final List<BiConsumer<ParkingSpotType, Integer>> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public OccupancyCounters(ParkingSpotRepository parkingSpotRepository,
+                             ParkingTicketRepository ticketRepository,
+                             @Value("${parking.cluster.enabled:false}") boolean clustered) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.ticketRepository = ticketRepository;
+        this.clustered = clustered;
+        for (ParkingSpotType type : ParkingSpotType.values()) {
+            counts.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(LotOpenedEvent.class)
+    public synchronized void rebuild() {
+        counts.values().forEach(Map::clear);
+        activeTickets.reset();
+        reconcile(false);
+    }
+
+    public long getTotalSpots() {
+        return counts.values().stream()
+            .flatMap(floors -> floors.values().stream())
+            .mapToLong(SpotCounts::total)
+            .sum();
+    }
+
+    public long getAvailableSpots() {
+        return counts.values().stream()
+            .flatMap(floors -> floors.values().stream())
+            .mapToLong(SpotCounts::available)
+            .sum();
+    }
+
+    public long getAvailableSpots(ParkingSpotType spotType) {
+        return counts.get(spotType).values().stream().mapToLong(SpotCounts::available).sum();
+    }
+
+    public long getAvailableSpots(ParkingSpotType spotType, int floor) {
+        SpotCounts floorCounts = counts.get(spotType).get(floor);
+        return floorCounts == null ? 0 : floorCounts.available();
+    }
+
+    public long getTotalSpots(ParkingSpotType spotType, int floor) {
+        SpotCounts floorCounts = counts.get(spotType).get(floor);
+        return floorCounts == null ? 0 : floorCounts.total();
+    }
+
+    /**
+     * Floors that have or had spots of a type.
+     */
+    public Set<Integer> getFloors(ParkingSpotType spotType) {
+        return Set.copyOf(counts.get(spotType).keySet());
+    }
+
+    public long getActiveTickets() {
+        return activeTickets.sum();
+    }
+
+    /**
+     * Changes with every committed change to the counts or to a floor.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Entity tag for responses built from the lot's occupancy; changes whenever {@link #getVersion} does.
+     * Read it before building the response: a change racing the build then costs the client one
+     * more full response rather than hiding the change behind a 304.
+     */
+    public String getETag() {
+        return epoch + "-" + version.get();
+    }
+
+    /**
+     * Called with the spot type and floor of every count that changes, on the thread applying the change.
+     */
+    public void addListener(BiConsumer<ParkingSpotType, Integer> listener) {
+        listeners.add(listener);
+    }
+
+    void spotsAdded(List<ParkingSpot> spots) {
+        onCommit(spots, 1, 1);
+    }
+
+    /**
+     * Free spots added in bulk, as a count per spot type and floor.
+     */
+    void spotsAdded(Map<ParkingSpotType, Map<Integer, Integer>> addedByTypeAndFloor) {
+        afterCommit(() -> {
+            addedByTypeAndFloor.forEach((type, floors) -> floors.forEach((floor, added) -> {
+                SpotCounts floorCounts = counts.get(type).computeIfAbsent(floor, key -> new SpotCounts());
+                floorCounts.totalSpots.add(added);
+                floorCounts.availableSpots.add(added);
+            }));
+            version.incrementAndGet();
+            addedByTypeAndFloor.forEach((type, floors) -> floors.keySet().forEach(floor -> notifyListeners(type, floor)));
+        });
+    }
+
+    void spotsRemoved(List<ParkingSpot> spots) {
+        // Only free spots can be removed
+        onCommit(spots, -1, -1);
+    }
+
+    void spotsOccupied(List<ParkingSpot> spots) {
+        onCommit(spots, 0, -1);
+    }
+
+    void spotsFreed(List<ParkingSpot> spots) {
+        onCommit(spots, 0, 1);
+    }
+
+    void ticketsOpened(int tickets) {
+        afterCommit(() -> {
+            activeTickets.add(tickets);
+            version.incrementAndGet();
+        });
+    }
+
+    void ticketsClosed(int tickets) {
+        ticketsOpened(-tickets);
+    }
+
+    /**
+     * A floor changed without changing any counts, e.g. it went into or out of maintenance.
+     */
+    void floorChanged() {
+        afterCommit(version::incrementAndGet);
+    }
+
+    public void reconcile() {
+        reconcile(true);
+    }
+
+    /**
+     * Bring the counters in line with the database.
+     *
+     * @return the number of counts that had drifted, or 0 if a change was committed or applied while the
+     *         database was read
+     */
+    synchronized int reconcile(boolean reportDrift) {
+        long versionBefore = version.get();
+        Map<ParkingSpotType, Map<Integer, long[]>> stored = new EnumMap<>(ParkingSpotType.class);
+        for (Object[] row : parkingSpotRepository.countSpotsByTypeAndFloor()) {
+            stored.computeIfAbsent((ParkingSpotType) row[0], type -> new HashMap<>())
+                .put((Integer) row[1], new long[] {((Number) row[2]).longValue(), ((Number) row[3]).longValue()});
+        }
+        long storedTickets = ticketRepository.countActiveTickets();
+        // A change the read may have seen is either still committing or has bumped the version by
+        // now; checked in that order so a change applied between the two checks is still caught
+        if (committing.get() != 0 || version.get() != versionBefore) {
+            // The next run will compare a consistent picture
+            return 0;
+        }
+
+        int drifted = 0;
+        for (ParkingSpotType type : ParkingSpotType.values()) {
+            Map<Integer, long[]> storedFloors = stored.computeIfAbsent(type, key -> new HashMap<>());
+            ConcurrentHashMap<Integer, SpotCounts> floors = counts.get(type);
+            for (Integer floor : floors.keySet()) {
+                storedFloors.putIfAbsent(floor, new long[] {0, 0});
+            }
+            for (Map.Entry<Integer, long[]> entry : storedFloors.entrySet()) {
+                SpotCounts floorCounts = floors.computeIfAbsent(entry.getKey(), floor -> new SpotCounts());
+                long totalDrift = entry.getValue()[0] - floorCounts.total();
+                long availableDrift = entry.getValue()[1] - floorCounts.available();
+                if (totalDrift != 0 || availableDrift != 0) {
+                    reportDrift(reportDrift, "{} spots on floor {}: total off by {}, available off by {}",
+                        type, entry.getKey(), totalDrift, availableDrift);
+                    floorCounts.totalSpots.add(totalDrift);
+                    floorCounts.availableSpots.add(availableDrift);
+                    notifyListeners(type, entry.getKey());
+                    drifted++;
+                }
+            }
+        }
+        long ticketDrift = storedTickets - activeTickets.sum();
+        if (ticketDrift != 0) {
+            reportDrift(reportDrift, "Active tickets off by {}", ticketDrift);
+            activeTickets.add(ticketDrift);
+            drifted++;
+        }
+        if (drifted > 0) {
+            version.incrementAndGet();
+        }
+        return drifted;
+    }
+
+    private void onCommit(List<ParkingSpot> spots, int totalDelta, int availableDelta) {
+        List<Map.Entry<ParkingSpotType, Integer>> keys = spots.stream()
+            .map(spot -> Map.entry(spot.getSpotType(), spot.getFloor()))
+            .toList();
+        afterCommit(() -> {
+            for (Map.Entry<ParkingSpotType, Integer> key : keys) {
+                SpotCounts floorCounts = counts.get(key.getKey()).computeIfAbsent(key.getValue(), floor -> new SpotCounts());
+                floorCounts.totalSpots.add(totalDelta);
+                floorCounts.availableSpots.add(availableDelta);
+            }
+            version.incrementAndGet();
+            keys.forEach(key -> notifyListeners(key.getKey(), key.getValue()));
+        });
+    }
+
+    /**
+     * Apply a change once its transaction commits, counting it as committing from just before the
+     * database commit until it has been applied.
+     */
+    private void afterCommit(Runnable apply) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean counted;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing.incrementAndGet();
+                counted = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (counted) {
+                    committing.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void notifyListeners(ParkingSpotType spotType, Integer floor) {
+        for (BiConsumer<ParkingSpotType, Integer> listener : listeners) {
+            listener.accept(spotType, floor);
+        }
+    }
+
+    private void reportDrift(boolean report, String message, Object... args) {
+        if (!report) {
+            return;
+        }
+        if (clustered) {
+            log.debug(message, args);
+        } else {
+            log.warn("Occupancy counter drift: " + message, args);
+        }
+    }
+
+    private static final class SpotCounts {
+        private final LongAdder totalSpots = new LongAdder();
+        private final LongAdder availableSpots = new LongAdder();
+
+        long total() {
+            return totalSpots.sum();
+        }
+
+        long available() {
+            return availableSpots.sum();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.annotation.PreDestroy;
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.dto.OccupancySample;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-floor, per-type occupancy history in fixed memory. Every sample of the occupancy counters is
+ * folded into two ring buffers: one-minute buckets covering a day and one-hour buckets covering
+ * thirty days. A bucket keeps the sum, count and maximum of its samples in primitive arrays, so
+ * recording allocates nothing once a floor and type has been seen.
+ *
+ * The buffers are written to a file periodically and on shutdown, and read back when the lot is
+ * opened. Each lot keeps its own history and file.
+ */
+@Component
+@LotScoped
+public class OccupancyHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyHistory.class);
+    private static final int FILE_MAGIC = 0x4F434348;
+    private static final int FILE_VERSION = 1;
+    private static final Comparator<OccupancySample> SAMPLE_ORDER = Comparator.comparing(OccupancySample::getTime)
+        .thenComparingInt(OccupancySample::getFloorNumber)
+        .thenComparing(OccupancySample::getSpotType);
+
+    public enum Resolution {
+        MINUTE(60_000L, 24 * 60),
+        HOUR(3_600_000L, 30 * 24);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Resolution(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public long getRetentionMillis() {
+            return bucketMillis * buckets;
+        }
+    }
+
+    private final OccupancyCounters occupancyCounters;
+    private final Path file;
+    // Guarded by this. Which bucket each slot holds, -1 for none; shared by all cells of a resolution
+    private final long[][] slotBuckets = new long[Resolution.values().length][];
+    private final Map<Cell, Series> series = new TreeMap<>();
+
+    @Autowired
+    public OccupancyHistory(OccupancyCounters occupancyCounters,
+                            @Value("${parking.history.file:}") String file) {
+        this.occupancyCounters = occupancyCounters;
+        this.file = file.isBlank() ? null : fileOfLot(Path.of(file), LotContext.currentLot());
+        clear();
+    }
+
+    // The default lot keeps the configured file; every other lot gets its own next to it
+    private static Path fileOfLot(Path file, String lotId) {
+        if (lotId.equals(LotContext.DEFAULT_LOT)) {
+            return file;
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String lotName = dot > 0 ? name.substring(0, dot) + "-" + lotId + name.substring(dot) : name + "-" + lotId;
+        return file.resolveSibling(lotName);
+    }
+
+    public void sample() {
+        sample(System.currentTimeMillis());
+    }
+
+    /**
+     * Record the current per-floor, per-type occupancy as of the given time.
+     */
+    synchronized void sample(long epochMillis) {
+        for (Resolution resolution : Resolution.values()) {
+            claimSlot(resolution, epochMillis);
+        }
+        for (ParkingSpotType spotType : ParkingSpotType.values()) {
+            for (int floor : occupancyCounters.getFloors(spotType)) {
+                long total = occupancyCounters.getTotalSpots(spotType, floor);
+                long available = occupancyCounters.getAvailableSpots(spotType, floor);
+                Series cellSeries = series.computeIfAbsent(new Cell(floor, spotType), cell -> new Series());
+                for (Resolution resolution : Resolution.values()) {
+                    int slot = (int) (epochMillis / resolution.bucketMillis % resolution.buckets);
+                    cellSeries.tiers[resolution.ordinal()].add(slot, (int) (total - available), (int) total);
+                }
+            }
+        }
+    }
+
+    /**
+     * The finest resolution still holding history back to the given time.
+     */
+    public Resolution finestResolutionSince(LocalDateTime from) {
+        long fromMillis = from.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long age = System.currentTimeMillis() - fromMillis;
+        return age <= Resolution.MINUTE.getRetentionMillis() ? Resolution.MINUTE : Resolution.HOUR;
+    }
+
+    /**
+     * Buckets of the given resolution that start within [from, to], ordered by time, floor and type.
+     */
+    public synchronized List<OccupancySample> getHistory(LocalDateTime from, LocalDateTime to, Resolution resolution) {
+        ZoneId zone = ZoneId.systemDefault();
+        long fromBucket = Math.floorDiv(from.atZone(zone).toInstant().toEpochMilli(), resolution.bucketMillis);
+        long toBucket = Math.floorDiv(to.atZone(zone).toInstant().toEpochMilli(), resolution.bucketMillis);
+        long[] buckets = slotBuckets[resolution.ordinal()];
+        List<OccupancySample> samples = new ArrayList<>();
+        for (int slot = 0; slot < buckets.length; slot++) {
+            long bucket = buckets[slot];
+            if (bucket < fromBucket || bucket > toBucket) {
+                continue;
+            }
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket * resolution.bucketMillis), zone);
+            for (Map.Entry<Cell, Series> entry : series.entrySet()) {
+                Tier tier = entry.getValue().tiers[resolution.ordinal()];
+                if (tier.counts[slot] > 0) {
+                    samples.add(new OccupancySample(time, entry.getKey().floor(), entry.getKey().spotType(),
+                        (double) tier.occupiedSums[slot] / tier.counts[slot], tier.occupiedMax[slot], tier.totals[slot]));
+                }
+            }
+        }
+        samples.sort(SAMPLE_ORDER);
+        return samples;
+    }
+
+    @EventListener(LotOpenedEvent.class)
+    public void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            read(in);
+            log.info("Loaded occupancy history for {} floor and spot type combinations from {}", series.size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable occupancy history in {}", file, e);
+            clear();
+        }
+    }
+
+    public void persist() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    write(out);
+                }
+                // Readers never see a half-written file
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist occupancy history to {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    private synchronized void write(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(Resolution.values().length);
+        for (Resolution resolution : Resolution.values()) {
+            out.writeLong(resolution.bucketMillis);
+            out.writeInt(resolution.buckets);
+            writeLongs(out, slotBuckets[resolution.ordinal()]);
+        }
+        out.writeInt(series.size());
+        for (Map.Entry<Cell, Series> entry : series.entrySet()) {
+            out.writeInt(entry.getKey().floor());
+            out.writeUTF(entry.getKey().spotType().name());
+            for (Tier tier : entry.getValue().tiers) {
+                writeLongs(out, tier.occupiedSums);
+                writeInts(out, tier.occupiedMax);
+                writeInts(out, tier.counts);
+                writeInts(out, tier.totals);
+            }
+        }
+    }
+
+    private synchronized void read(DataInputStream in) throws IOException {
+        if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || in.readInt() != Resolution.values().length) {
+            throw new IOException("Not an occupancy history file of this version");
+        }
+        clear();
+        for (Resolution resolution : Resolution.values()) {
+            if (in.readLong() != resolution.bucketMillis || in.readInt() != resolution.buckets) {
+                throw new IOException("Occupancy history was written with different buckets");
+            }
+            readLongs(in, slotBuckets[resolution.ordinal()]);
+        }
+        int cells = in.readInt();
+        for (int i = 0; i < cells; i++) {
+            Cell cell = new Cell(in.readInt(), ParkingSpotType.valueOf(in.readUTF()));
+            Series cellSeries = new Series();
+            for (Tier tier : cellSeries.tiers) {
+                readLongs(in, tier.occupiedSums);
+                readInts(in, tier.occupiedMax);
+                readInts(in, tier.counts);
+                readInts(in, tier.totals);
+            }
+            series.put(cell, cellSeries);
+        }
+    }
+
+    private synchronized void clear() {
+        series.clear();
+        for (Resolution resolution : Resolution.values()) {
+            long[] buckets = new long[resolution.buckets];
+            Arrays.fill(buckets, -1);
+            slotBuckets[resolution.ordinal()] = buckets;
+        }
+    }
+
+    // Point the time's slot at its bucket, emptying it of whatever older bucket it held
+    private void claimSlot(Resolution resolution, long epochMillis) {
+        long bucket = epochMillis / resolution.bucketMillis;
+        int slot = (int) (bucket % resolution.buckets);
+        long[] buckets = slotBuckets[resolution.ordinal()];
+        if (buckets[slot] != bucket) {
+            buckets[slot] = bucket;
+            series.values().forEach(cellSeries -> cellSeries.tiers[resolution.ordinal()].reset(slot));
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void readLongs(DataInputStream in, long[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+    }
+
+    private record Cell(int floor, ParkingSpotType spotType) implements Comparable<Cell> {
+        @Override
+        public int compareTo(Cell other) {
+            int byFloor = Integer.compare(floor, other.floor);
+            return byFloor != 0 ? byFloor : spotType.compareTo(other.spotType);
+        }
+    }
+
+    // One floor and type at every resolution
+    private static final class Series {
+        private final Tier[] tiers = new Tier[Resolution.values().length];
+
+        private Series() {
+            for (Resolution resolution : Resolution.values()) {
+                tiers[resolution.ordinal()] = new Tier(resolution.buckets);
+            }
+        }
+    }
+
+    // One floor and type at one resolution, indexed by slot
+    private static final class Tier {
+        private final long[] occupiedSums;
+        private final int[] occupiedMax;
+        private final int[] counts;
+        private final int[] totals;
+
+        private Tier(int buckets) {
+            occupiedSums = new long[buckets];
+            occupiedMax = new int[buckets];
+            counts = new int[buckets];
+            totals = new int[buckets];
+        }
+
+        void add(int slot, int occupied, int total) {
+            occupiedSums[slot] += occupied;
+            occupiedMax[slot] = Math.max(occupiedMax[slot], occupied);
+            counts[slot]++;
+            totals[slot] = total;
+        }
+
+        void reset(int slot) {
+            occupiedSums[slot] = 0;
+            occupiedMax[slot] = 0;
+            counts[slot] = 0;
+            totals[slot] = 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package learn.spring.smart_parking_lot.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.dto.SpotAvailability;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes per-floor, per-type availability to Server-Sent Events subscribers. A subscriber first gets
+ * a snapshot of every floor and type, then an update with the current counts of whatever changed,
+ * at most once per coalescing window however many spots changed within it.
+ *
+ * Windows and heartbeats are driven by {@link LotTasks}, which visits every lot in turn, so a lot
+ * has no threads of its own and a lot nobody subscribes to costs one check per window.
+ *
+ * An idle subscriber costs only its async request and a small set of pending changes. Sends run
+ * on virtual threads, so a subscriber that cannot keep up blocks nobody else: changes for it merge
+ * into its pending set while a send is in flight, and if one send takes longer than the allowed lag
+ * the subscriber is dropped.
+ */
+@Component
+@LotScoped
+public class OccupancyStream {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyStream.class);
+    private static final Comparator<Cell> CELL_ORDER = Comparator.comparingInt(Cell::floor).thenComparing(Cell::spotType);
+    // Shared by every lot; a virtual thread per send, so there is nothing to pool or shut down
+    private static final ThreadFactory SENDERS = Thread.ofVirtual().name("occupancy-stream-send-", 0).factory();
+
+    private final OccupancyCounters occupancyCounters;
+    private final ObjectMapper objectMapper;
+    private final long maxLagNanos;
+    // Sends read the counters of the lot the stream was created for
+    private final String lotId = LotContext.currentLot();
+    // Changed since the last window; one entry per floor and type however often it changed
+    private final Set<Cell> changed = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // The last window's update, shared by every subscriber that was caught up
+    private volatile Update lastUpdate = new Update(Set.of(), "[]");
+
+    @Autowired
+    public OccupancyStream(OccupancyCounters occupancyCounters,
+                           ObjectMapper objectMapper,
+                           @Value("${parking.stream.max-lag-ms:5000}") long maxLagMillis) {
+        this.occupancyCounters = occupancyCounters;
+        this.objectMapper = objectMapper;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        occupancyCounters.addListener((spotType, floor) -> changed.add(new Cell(floor, spotType)));
+    }
+
+    public SseEmitter subscribe() {
+        // No timeout: subscribers stay until they disconnect or fall behind
+        return subscribe(new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.sendSnapshot();
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Send every subscriber the floors and types that changed in the window that just ended.
+     */
+    public void publishChanges() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        if (subscribers.isEmpty()) {
+            // A later subscriber starts from a snapshot, so nobody needs this window
+            changed.clear();
+            return;
+        }
+        Set<Cell> cells = new HashSet<>();
+        for (Cell cell : changed) {
+            changed.remove(cell);
+            cells.add(cell);
+        }
+        try {
+            Update update = new Update(Set.copyOf(cells), toJson(cells));
+            lastUpdate = update;
+            subscribers.forEach(subscriber -> subscriber.offer(update.cells()));
+        } catch (RuntimeException e) {
+            // Keep the other lots' windows going
+            log.error("Failed to publish occupancy changes", e);
+        }
+    }
+
+    public void sendHeartbeats() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    private Runnable inLot(Runnable task) {
+        return () -> LotContext.run(lotId, task);
+    }
+
+    private String toJson(Set<Cell> cells) {
+        List<SpotAvailability> availability = cells.stream()
+            .sorted(CELL_ORDER)
+            .map(cell -> new SpotAvailability(cell.floor(), cell.spotType(),
+                occupancyCounters.getAvailableSpots(cell.spotType(), cell.floor()),
+                occupancyCounters.getTotalSpots(cell.spotType(), cell.floor())))
+            .toList();
+        try {
+            return objectMapper.writeValueAsString(availability);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize spot availability", e);
+        }
+    }
+
+    private Set<Cell> allCells() {
+        Set<Cell> cells = new HashSet<>();
+        for (ParkingSpotType spotType : ParkingSpotType.values()) {
+            occupancyCounters.getFloors(spotType).forEach(floor -> cells.add(new Cell(floor, spotType)));
+        }
+        return cells;
+    }
+
+    private record Cell(int floor, ParkingSpotType spotType) {}
+
+    private record Update(Set<Cell> cells, String json) {}
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final Set<Cell> pending = new HashSet<>();
+        private boolean snapshotDue;
+        private boolean heartbeatDue;
+        private boolean sending;
+        private long sendingSince;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void sendSnapshot() {
+            synchronized (this) {
+                snapshotDue = true;
+            }
+            startSending();
+        }
+
+        void offer(Set<Cell> cells) {
+            synchronized (this) {
+                pending.addAll(cells);
+            }
+            startSending();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            startSending();
+        }
+
+        private void startSending() {
+            synchronized (this) {
+                if (sending) {
+                    if (System.nanoTime() - sendingSince > maxLagNanos) {
+                        drop();
+                    }
+                    return;
+                }
+                sending = true;
+                sendingSince = System.nanoTime();
+            }
+            SENDERS.newThread(inLot(this::sendPending)).start();
+        }
+
+        private void sendPending() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    if (snapshotDue) {
+                        snapshotDue = false;
+                        pending.clear();
+                        event = SseEmitter.event().name("snapshot").data(toJson(allCells()));
+                    } else if (!pending.isEmpty()) {
+                        Update update = lastUpdate;
+                        // A subscriber that kept up gets the window's shared payload
+                        String json = pending.equals(update.cells()) ? update.json() : toJson(pending);
+                        pending.clear();
+                        event = SseEmitter.event().name("availability").data(json);
+                    } else if (heartbeatDue) {
+                        heartbeatDue = false;
+                        event = SseEmitter.event().comment("keep-alive");
+                    } else {
+                        sending = false;
+                        return;
+                    }
+                    heartbeatDue = false;
+                    sendingSince = System.nanoTime();
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Disconnected or already completed
+                    subscribers.remove(this);
+                    return;
+                }
+            }
+        }
+
+        private void drop() {
+            if (subscribers.remove(this)) {
+                log.debug("Dropping an occupancy stream subscriber that fell behind");
+                // Completing may wait for the stuck send, so never on the caller's thread
+                SENDERS.newThread(emitter::complete).start();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import learn.spring.smart_parking_lot.dto.ParkingLotStatus;
 import learn.spring.smart_parking_lot.dto.ParkingResponse;
 import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
 import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.exception.NoAvailableSpotException;
 import learn.spring.smart_parking_lot.exception.TicketNotFoundException;
 import learn.spring.smart_parking_lot.model.*;
 import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
@@ -11,12 +12,20 @@ import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
 import learn.spring.smart_parking_lot.repository.VehicleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -26,50 +35,83 @@ public class ParkingService {
     private final ParkingTicketRepository ticketRepository;
     private final ParkingSpotAllocationService spotAllocationService;
     private final FeeCalculationService feeCalculationService;
+    private final ReservationService reservationService;
+    private final ActiveTicketIndex activeTicketIndex;
+    private final TicketNumberGenerator ticketNumberGenerator;
+    private final OccupancyCounters occupancyCounters;
+    private final ParkingStatistics parkingStatistics;
     
     @Autowired
     public ParkingService(VehicleRepository vehicleRepository,
                          ParkingTicketRepository ticketRepository,
                          ParkingSpotAllocationService spotAllocationService,
-                         FeeCalculationService feeCalculationService) {
+                         FeeCalculationService feeCalculationService,
+                         ReservationService reservationService,
+                         ActiveTicketIndex activeTicketIndex,
+                         TicketNumberGenerator ticketNumberGenerator,
+                         OccupancyCounters occupancyCounters,
+                         ParkingStatistics parkingStatistics) {
         this.vehicleRepository = vehicleRepository;
         this.ticketRepository = ticketRepository;
         this.spotAllocationService = spotAllocationService;
         this.feeCalculationService = feeCalculationService;
+        this.reservationService = reservationService;
+        this.activeTicketIndex = activeTicketIndex;
+        this.ticketNumberGenerator = ticketNumberGenerator;
+        this.occupancyCounters = occupancyCounters;
+        this.parkingStatistics = parkingStatistics;
     }
     
     public ParkingResponse parkVehicle(VehicleEntryRequest request) {
+        // Check if vehicle is already parked, holding its plate until the entry is done
+        if (!activeTicketIndex.claim(request.getLicensePlate())) {
+            return ParkingResponse.failure("Vehicle is already parked in the lot");
+        }
         try {
-            // Check if vehicle is already parked
-            if (isVehicleCurrentlyParked(request.getLicensePlate())) {
+            if (!activeTicketIndex.isComplete() && isVehicleCurrentlyParked(request.getLicensePlate())) {
+                activeTicketIndex.release(request.getLicensePlate());
                 return ParkingResponse.failure("Vehicle is already parked in the lot");
             }
             
             // Create or get existing vehicle
             Vehicle vehicle = getOrCreateVehicle(request);
             
-            // Allocate parking spot
-            ParkingSpot spot = spotAllocationService.allocateSpot(vehicle.getVehicleType());
+            // Allocate parking spot(s), using the vehicle's reservation if it has one for now
+            LocalDateTime entryTime = LocalDateTime.now();
+            Reservation reservation = reservationService
+                .findArrivals(List.of(request.getLicensePlate()), entryTime)
+                .get(request.getLicensePlate());
+            List<ParkingSpot> spots = tryAllocateSpots(vehicle, reservation)
+                .orElseThrow(() -> new NoAvailableSpotException("No available parking spot for " + vehicle.getVehicleType()));
+            ParkingSpot spot = spots.get(0);
             
             // Create parking ticket
-            LocalDateTime entryTime = LocalDateTime.now();
-            String ticketNumber = generateTicketNumber();
+            String ticketNumber = ticketNumberGenerator.nextTicketNumber();
             
-            ParkingTicket ticket = new ParkingTicket(ticketNumber, vehicle, spot, entryTime);
+            ParkingTicket ticket = new ParkingTicket(ticketNumber, vehicle, spots, entryTime);
             ticket = ticketRepository.save(ticket);
+            activeTicketIndex.publish(request.getLicensePlate(), ticket);
+            occupancyCounters.ticketsOpened(1);
             
-            // Update spot with current ticket
-            spot.setCurrentTicket(ticket);
+            // Update every held spot with current ticket
+            for (ParkingSpot held : spots) {
+                held.setCurrentTicket(ticket);
+            }
             
             // Prepare response
             ParkingResponse response = ParkingResponse.success("Vehicle parked successfully");
             response.setTicketNumber(ticketNumber);
             response.setSpotNumber(spot.getSpotNumber());
+            response.setSpotNumbers(spotNumbers(ticket));
             response.setEntryTime(entryTime);
+            if (reservation != null && reservation.getStatus() == ReservationStatus.FULFILLED) {
+                response.setReservationNumber(reservation.getReservationNumber());
+            }
             
             return response;
             
         } catch (Exception e) {
+            activeTicketIndex.release(request.getLicensePlate());
             return ParkingResponse.failure("Failed to park vehicle: " + e.getMessage());
         }
     }
@@ -77,59 +119,134 @@ public class ParkingService {
     public ParkingResponse exitVehicle(VehicleExitRequest request) {
         try {
             // Find active ticket for the vehicle
-            ParkingTicket ticket = ticketRepository
-                .findByLicensePlateAndStatus(request.getLicensePlate(), TicketStatus.ACTIVE)
+            ParkingTicket ticket = findTicketForExit(request.getLicensePlate())
                 .orElseThrow(() -> new TicketNotFoundException("No active parking ticket found for license plate: " + request.getLicensePlate()));
             
-            LocalDateTime exitTime = LocalDateTime.now();
+            return checkOut(ticket, LocalDateTime.now());
             
-            // Calculate fee
-            BigDecimal fee = feeCalculationService.calculateFee(
-                ticket.getVehicle().getVehicleType(),
-                ticket.getEntryTime(),
-                exitTime
-            );
+        } catch (Exception e) {
+            activeTicketIndex.cancelExit(request.getLicensePlate());
+            return ParkingResponse.failure("Failed to process vehicle exit: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Park a burst of vehicles in one transaction. Vehicles are preloaded with one IN query, spots are allocated in a single pass and the tickets are inserted
+     * as a JDBC batch. Every vehicle gets its own response; one that cannot be parked does not
+     * roll back the others.
+     */
+    public List<ParkingResponse> parkVehicles(List<VehicleEntryRequest> requests) {
+        Set<String> licensePlates = requests.stream()
+            .map(VehicleEntryRequest::getLicensePlate)
+            .collect(Collectors.toSet());
+        Map<String, Vehicle> vehicles = vehicleRepository.findByLicensePlateIn(licensePlates).stream()
+            .collect(Collectors.toMap(Vehicle::getLicensePlate, Function.identity()));
+        // Only needed when other instances may have parked some of these vehicles
+        Set<String> parkedElsewhere = activeTicketIndex.isComplete() ? Set.of() : new HashSet<>(
+            ticketRepository.findLicensePlatesWithStatus(licensePlates, TicketStatus.ACTIVE));
+        Map<String, Reservation> reservations = reservationService.findArrivals(licensePlates, LocalDateTime.now());
+        
+        List<ParkingResponse> responses = new ArrayList<>(requests.size());
+        List<ParkingTicket> tickets = new ArrayList<>(requests.size());
+        for (VehicleEntryRequest request : requests) {
+            // Also rejects the same plate appearing twice in one batch
+            if (!activeTicketIndex.claim(request.getLicensePlate())) {
+                responses.add(ParkingResponse.failure("Vehicle is already parked in the lot"));
+                continue;
+            }
+            if (parkedElsewhere.contains(request.getLicensePlate())) {
+                activeTicketIndex.release(request.getLicensePlate());
+                responses.add(ParkingResponse.failure("Vehicle is already parked in the lot"));
+                continue;
+            }
             
-            long durationInMinutes = feeCalculationService.calculateDurationInMinutes(
-                ticket.getEntryTime(),
-                exitTime
-            );
+            Vehicle vehicle = vehicles.computeIfAbsent(request.getLicensePlate(), plate ->
+                vehicleRepository.save(new Vehicle(plate, request.getVehicleType(), request.getOwnerName())));
             
-            // Update ticket
-            ticket.markAsExited(exitTime);
-            ticket.markAsPaid(fee);
-            ticketRepository.save(ticket);
+            Reservation reservation = reservations.get(request.getLicensePlate());
+            Optional<List<ParkingSpot>> spots = tryAllocateSpots(vehicle, reservation);
+            if (spots.isEmpty()) {
+                activeTicketIndex.release(request.getLicensePlate());
+                responses.add(ParkingResponse.failure(
+                    "Failed to park vehicle: No available parking spot for " + vehicle.getVehicleType()));
+                continue;
+            }
             
-            // Free the parking spot
-            spotAllocationService.freeSpot(ticket.getParkingSpot());
+            ParkingTicket ticket = new ParkingTicket(ticketNumberGenerator.nextTicketNumber(), vehicle, spots.get(), LocalDateTime.now());
+            tickets.add(ticket);
             
-            // Prepare response
-            ParkingResponse response = ParkingResponse.success("Vehicle exit processed successfully");
+            ParkingResponse response = ParkingResponse.success("Vehicle parked successfully");
             response.setTicketNumber(ticket.getTicketNumber());
             response.setSpotNumber(ticket.getParkingSpot().getSpotNumber());
+            response.setSpotNumbers(spotNumbers(ticket));
             response.setEntryTime(ticket.getEntryTime());
-            response.setExitTime(exitTime);
-            response.setFee(fee);
-            response.setDurationInMinutes(durationInMinutes);
-            
-            return response;
-            
-        } catch (Exception e) {
-            return ParkingResponse.failure("Failed to process vehicle exit: " + e.getMessage());
+            if (reservation != null && reservation.getStatus() == ReservationStatus.FULFILLED) {
+                response.setReservationNumber(reservation.getReservationNumber());
+            }
+            responses.add(response);
+        }
+        
+        ticketRepository.saveAll(tickets);
+        occupancyCounters.ticketsOpened(tickets.size());
+        for (ParkingTicket ticket : tickets) {
+            // Only once saved: allocating the next vehicle flushes the spots claimed so far
+            ticket.getSpots().forEach(held -> held.setCurrentTicket(ticket));
+            activeTicketIndex.publish(ticket.getVehicle().getLicensePlate(), ticket);
         }
+        return responses;
     }
     
+    /**
+     * Process a burst of exits in one transaction, loading every active ticket by id with a single
+     * fetch-joined IN query. Every vehicle gets its own response.
+     */
+    public List<ParkingResponse> exitVehicles(List<VehicleExitRequest> requests) {
+        // The same plate twice in one batch only gets one exit
+        Map<String, Long> ticketIds = new HashMap<>();
+        Set<String> unindexedPlates = new HashSet<>();
+        for (VehicleExitRequest request : requests) {
+            activeTicketIndex.beginExit(request.getLicensePlate()).ifPresentOrElse(
+                active -> ticketIds.put(request.getLicensePlate(), active.ticketId()),
+                () -> unindexedPlates.add(request.getLicensePlate()));
+        }
+        Map<Long, ParkingTicket> activeTickets = ticketRepository.findWithSpotsByIdIn(ticketIds.values()).stream()
+            .filter(ticket -> ticket.getStatus() == TicketStatus.ACTIVE)
+            .collect(Collectors.toMap(ParkingTicket::getId, Function.identity(), (first, second) -> first));
+        // Vehicles parked through another instance
+        Map<String, ParkingTicket> ticketsElsewhere = activeTicketIndex.isComplete() ? new HashMap<>() : ticketRepository
+            .findByLicensePlateInAndStatus(unindexedPlates, TicketStatus.ACTIVE).stream()
+            .collect(Collectors.toMap(ticket -> ticket.getVehicle().getLicensePlate(), Function.identity(),
+                (first, second) -> first));
+        
+        LocalDateTime exitTime = LocalDateTime.now();
+        List<ParkingResponse> responses = new ArrayList<>(requests.size());
+        for (VehicleExitRequest request : requests) {
+            Long ticketId = ticketIds.remove(request.getLicensePlate());
+            ParkingTicket ticket = ticketId != null ? activeTickets.get(ticketId) : ticketsElsewhere.remove(request.getLicensePlate());
+            if (ticket == null) {
+                responses.add(ParkingResponse.failure("Failed to process vehicle exit: No active parking ticket found for license plate: "
+                    + request.getLicensePlate()));
+                continue;
+            }
+            responses.add(checkOut(ticket, exitTime));
+        }
+        return responses;
+    }
+    
+    // Status comes from the counters alone, so no transaction (and no connection) is needed
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ParkingLotStatus getParkingLotStatus() {
         ParkingLotStatus status = new ParkingLotStatus();
         
-        long availableSpots = spotAllocationService.getAvailableSpotCount();
-        long activeTickets = ticketRepository.countActiveTickets();
-        long totalSpots = availableSpots + activeTickets; // Total = available + occupied
-        long occupiedSpots = activeTickets;
+        // Read from the counters, without a query
+        long totalSpots = occupancyCounters.getTotalSpots();
+        long availableSpots = occupancyCounters.getAvailableSpots();
+        long occupiedSpots = totalSpots - availableSpots; // A bus ticket occupies several spots
+        long activeTickets = occupancyCounters.getActiveTickets();
         
-        long motorcycleSpots = spotAllocationService.getAvailableSpotCountByType(ParkingSpotType.MOTORCYCLE);
-        long compactSpots = spotAllocationService.getAvailableSpotCountByType(ParkingSpotType.COMPACT);
-        long largeSpots = spotAllocationService.getAvailableSpotCountByType(ParkingSpotType.LARGE);
+        long motorcycleSpots = occupancyCounters.getAvailableSpots(ParkingSpotType.MOTORCYCLE);
+        long compactSpots = occupancyCounters.getAvailableSpots(ParkingSpotType.COMPACT);
+        long largeSpots = occupancyCounters.getAvailableSpots(ParkingSpotType.LARGE);
         
         status.setTotalSpots(totalSpots);
         status.setAvailableSpots(availableSpots);
@@ -142,6 +259,64 @@ public class ParkingService {
         return status;
     }
     
+    private ParkingResponse checkOut(ParkingTicket ticket, LocalDateTime exitTime) {
+        // Calculate fee
+        BigDecimal fee = feeCalculationService.calculateFee(
+            ticket.getVehicle().getVehicleType(),
+            ticket.getEntryTime(),
+            exitTime
+        );
+        
+        long durationInMinutes = feeCalculationService.calculateDurationInMinutes(
+            ticket.getEntryTime(),
+            exitTime
+        );
+        parkingStatistics.recordDwell(ticket.getVehicle().getVehicleType(), ticket.getParkingSpot().getFloor(), durationInMinutes);
+        
+        // Update ticket; it is managed, so the update goes out with the spots in the transaction's flush
+        ticket.markAsExited(exitTime);
+        ticket.markAsPaid(fee);
+        occupancyCounters.ticketsClosed(1);
+        
+        // Free every spot the ticket holds
+        spotAllocationService.freeSpots(ticket.getSpots());
+        
+        // Prepare response
+        ParkingResponse response = ParkingResponse.success("Vehicle exit processed successfully");
+        response.setTicketNumber(ticket.getTicketNumber());
+        response.setSpotNumber(ticket.getParkingSpot().getSpotNumber());
+        response.setSpotNumbers(spotNumbers(ticket));
+        response.setEntryTime(ticket.getEntryTime());
+        response.setExitTime(exitTime);
+        response.setFee(fee);
+        response.setDurationInMinutes(durationInMinutes);
+        
+        return response;
+    }
+    
+    /**
+     * A vehicle with a reservation gets the spot held for it; reserved capacity is held back from
+     * everyone else. Reservations a vehicle cannot use (wrong spot size, or a bus needing a run)
+     * are left for the no-show expiry.
+     */
+    private Optional<List<ParkingSpot>> tryAllocateSpots(Vehicle vehicle, Reservation reservation) {
+        VehicleType vehicleType = vehicle.getVehicleType();
+        if (reservation != null && vehicleType != VehicleType.BUS
+                && reservation.getSpotType().canFitVehicle(vehicleType)) {
+            Optional<ParkingSpot> spot = spotAllocationService.tryAllocateReservedSpot(
+                reservation.getSpotType(), reservation.getFloorNumber());
+            if (spot.isPresent()) {
+                reservationService.markFulfilled(reservation);
+                return Optional.of(List.of(spot.get()));
+            }
+        }
+        return spotAllocationService.tryAllocateSpots(vehicleType);
+    }
+    
+    private List<String> spotNumbers(ParkingTicket ticket) {
+        return ticket.getSpots().stream().map(ParkingSpot::getSpotNumber).toList();
+    }
+    
     private Vehicle getOrCreateVehicle(VehicleEntryRequest request) {
         return vehicleRepository.findByLicensePlate(request.getLicensePlate())
             .orElseGet(() -> {
@@ -150,13 +325,21 @@ public class ParkingService {
             });
     }
     
-    private boolean isVehicleCurrentlyParked(String licensePlate) {
-        return ticketRepository.findByLicensePlateAndStatus(licensePlate, TicketStatus.ACTIVE).isPresent();
+    /**
+     * Look the ticket up by id through the active-ticket index, falling back to the plate query
+     * only for vehicles another instance may have parked.
+     */
+    private Optional<ParkingTicket> findTicketForExit(String licensePlate) {
+        Optional<ParkingTicket> ticket = activeTicketIndex.beginExit(licensePlate)
+            .flatMap(active -> ticketRepository.findForExit(active.ticketId()))
+            .filter(found -> found.getStatus() == TicketStatus.ACTIVE);
+        if (ticket.isPresent() || activeTicketIndex.isComplete()) {
+            return ticket;
+        }
+        return ticketRepository.findByLicensePlateInAndStatus(List.of(licensePlate), TicketStatus.ACTIVE).stream().findFirst();
     }
     
-    private String generateTicketNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        return "PKT-" + timestamp + "-" + uuid;
+    private boolean isVehicleCurrentlyParked(String licensePlate) {
+        return ticketRepository.findByLicensePlateAndStatus(licensePlate, TicketStatus.ACTIVE).isPresent();
     }
 }
@@ -5,47 +5,111 @@ import learn.spring.smart_parking_lot.model.ParkingSpot;
 import learn.spring.smart_parking_lot.model.ParkingSpotType;
 import learn.spring.smart_parking_lot.model.VehicleType;
 import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class ParkingSpotAllocationService {
     
+    // Candidates tried per spot type before falling back to the next type
+    static final int MAX_CLAIM_ATTEMPTS = 8;
+    
     private final ParkingSpotRepository parkingSpotRepository;
-    private final FloorManagementService floorManagementService;
+    private final MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+    private final SpotAvailabilityIndex availabilityIndex;
+    private final ReservationCalendar reservationCalendar;
+    private final OccupancyCounters occupancyCounters;
     
     @Autowired
-    public ParkingSpotAllocationService(ParkingSpotRepository parkingSpotRepository, FloorManagementService floorManagementService) {
+    public ParkingSpotAllocationService(ParkingSpotRepository parkingSpotRepository,
+                                        MaintenanceFloorSnapshot maintenanceFloorSnapshot,
+                                        SpotAvailabilityIndex availabilityIndex,
+                                        ReservationCalendar reservationCalendar,
+                                        OccupancyCounters occupancyCounters) {
         this.parkingSpotRepository = parkingSpotRepository;
-        this.floorManagementService = floorManagementService;
+        this.maintenanceFloorSnapshot = maintenanceFloorSnapshot;
+        this.availabilityIndex = availabilityIndex;
+        this.reservationCalendar = reservationCalendar;
+        this.occupancyCounters = occupancyCounters;
     }
     
+    /**
+     * Allocate the single spot a motorcycle or car needs. Buses take a run of spots, so they go
+     * through {@link #allocateSpots}.
+     */
     public ParkingSpot allocateSpot(VehicleType vehicleType) {
+        return tryAllocateSpot(vehicleType)
+            .orElseThrow(() -> new NoAvailableSpotException("No available parking spot for " + vehicleType));
+    }
+    
+    /**
+     * Allocate a spot without throwing when the lot is full, so a caller sharing the
+     * transaction (e.g. a batch of entries) is not marked rollback-only.
+     */
+    public Optional<ParkingSpot> tryAllocateSpot(VehicleType vehicleType) {
+        requireSingleSpot(vehicleType);
         // Find the best available spot for the vehicle type
-        ParkingSpot spot = findBestAvailableSpot(vehicleType)
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        return findBestAvailableSpot(vehicleType, maintenanceFloors);
+    }
+    
+    /**
+     * Allocate every spot a vehicle needs: a run of adjacent LARGE spots on one floor for a bus,
+     * a single spot for everything else.
+     */
+    public List<ParkingSpot> allocateSpots(VehicleType vehicleType) {
+        return tryAllocateSpots(vehicleType)
             .orElseThrow(() -> new NoAvailableSpotException("No available parking spot for " + vehicleType));
-        
-        // Mark the spot as occupied
-        spot.occupy();
-        return parkingSpotRepository.save(spot);
+    }
+    
+    public Optional<List<ParkingSpot>> tryAllocateSpots(VehicleType vehicleType) {
+        int runLength = requiredRunLength(vehicleType);
+        if (runLength == 1) {
+            return tryAllocateSpot(vehicleType).map(List::of);
+        }
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        return findAvailableRun(ParkingSpotType.LARGE, runLength,
+            unavailableFloors(ParkingSpotType.LARGE, runLength, maintenanceFloors));
     }
     
     /**
-     * Allocate spot with floor preference
+     * Allocate the spot a reservation holds: on its floor if one is free there, otherwise on any
+     * floor with a free spot of its type. Capacity held back for reservations is not held back from
+     * the vehicle it was reserved for.
+     */
+    public Optional<ParkingSpot> tryAllocateReservedSpot(ParkingSpotType spotType, int floor) {
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        if (!maintenanceFloors.contains(floor)) {
+            Optional<ParkingSpot> spot = claimOnFloor(spotType, floor);
+            if (spot.isPresent()) {
+                return spot;
+            }
+        }
+        return claimExcluding(spotType, maintenanceFloors);
+    }
+    
+    /**
+     * Allocate spot with floor preference, for vehicles that fit in one spot
      */
     public ParkingSpot allocateSpotWithFloorPreference(VehicleType vehicleType, Integer preferredFloor) {
+        requireSingleSpot(vehicleType);
+        
         // Try to find spot on preferred floor first
         if (preferredFloor != null) {
             Optional<ParkingSpot> preferredSpot = findBestAvailableSpotOnFloor(vehicleType, preferredFloor);
             if (preferredSpot.isPresent()) {
-                ParkingSpot spot = preferredSpot.get();
-                spot.occupy();
-                return parkingSpotRepository.save(spot);
+                return preferredSpot.get();
             }
         }
         
@@ -53,26 +117,22 @@ public class ParkingSpotAllocationService {
         return allocateSpot(vehicleType);
     }
     
-    private Optional<ParkingSpot> findBestAvailableSpot(VehicleType vehicleType) {
+    private Optional<ParkingSpot> findBestAvailableSpot(VehicleType vehicleType, Set<Integer> maintenanceFloors) {
         // Strategy: Try to find the most appropriate spot size first
         // Then try larger spots if smaller ones are not available
         
         switch (vehicleType) {
             case MOTORCYCLE:
                 // Try motorcycle spots first, then compact, then large
-                return findAvailableSpotByType(ParkingSpotType.MOTORCYCLE)
-                    .or(() -> findAvailableSpotByType(ParkingSpotType.COMPACT))
-                    .or(() -> findAvailableSpotByType(ParkingSpotType.LARGE));
+                return findAvailableSpotByType(ParkingSpotType.MOTORCYCLE, maintenanceFloors)
+                    .or(() -> findAvailableSpotByType(ParkingSpotType.COMPACT, maintenanceFloors))
+                    .or(() -> findAvailableSpotByType(ParkingSpotType.LARGE, maintenanceFloors));
                     
             case CAR:
                 // Try compact spots first, then large (motorcycles can't fit cars)
-                return findAvailableSpotByType(ParkingSpotType.COMPACT)
-                    .or(() -> findAvailableSpotByType(ParkingSpotType.LARGE));
+                return findAvailableSpotByType(ParkingSpotType.COMPACT, maintenanceFloors)
+                    .or(() -> findAvailableSpotByType(ParkingSpotType.LARGE, maintenanceFloors));
                     
-            case BUS:
-                // Only large spots can fit buses
-                return findAvailableSpotByType(ParkingSpotType.LARGE);
-                
             default:
                 return Optional.empty();
         }
@@ -92,30 +152,28 @@ public class ParkingSpotAllocationService {
                 return findAvailableSpotByTypeAndFloor(ParkingSpotType.COMPACT, floor)
                     .or(() -> findAvailableSpotByTypeAndFloor(ParkingSpotType.LARGE, floor));
                     
-            case BUS:
-                return findAvailableSpotByTypeAndFloor(ParkingSpotType.LARGE, floor);
-                
             default:
                 return Optional.empty();
         }
     }
     
-    private Optional<ParkingSpot> findAvailableSpotByType(ParkingSpotType spotType) {
-        // Get floors under maintenance to exclude them
-        List<Integer> maintenanceFloors = floorManagementService.getFloorsUnderMaintenance();
-        
-        List<ParkingSpot> availableSpots;
-        if (maintenanceFloors.isEmpty()) {
-            // No maintenance floors, use regular query
-            availableSpots = parkingSpotRepository
-                .findAvailableSpotsByTypeOrderByFloorAndSpotNumber(spotType);
-        } else {
-            // Exclude maintenance floors
-            availableSpots = parkingSpotRepository
-                .findAvailableSpotsByTypeExcludingFloors(spotType, maintenanceFloors);
+    private Optional<ParkingSpot> findAvailableSpotByType(ParkingSpotType spotType, Set<Integer> maintenanceFloors) {
+        // Claim from the in-memory index, skipping floors under maintenance or fully reserved
+        return claimExcluding(spotType, unavailableFloors(spotType, 1, maintenanceFloors));
+    }
+    
+    private Optional<ParkingSpot> claimExcluding(ParkingSpotType spotType, Set<Integer> excludedFloors) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Optional<SpotEntry> entry = availabilityIndex.claimFirst(spotType, excludedFloors);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<ParkingSpot> spot = occupyClaimedSpot(entry.get());
+            if (spot.isPresent()) {
+                return spot;
+            }
         }
-        
-        return availableSpots.isEmpty() ? Optional.empty() : Optional.of(availableSpots.get(0));
+        return Optional.empty();
     }
     
     /**
@@ -123,20 +181,151 @@ public class ParkingSpotAllocationService {
      */
     private Optional<ParkingSpot> findAvailableSpotByTypeAndFloor(ParkingSpotType spotType, Integer floor) {
         // Check if the requested floor is under maintenance
-        List<Integer> maintenanceFloors = floorManagementService.getFloorsUnderMaintenance();
-        if (maintenanceFloors.contains(floor)) {
+        if (maintenanceFloorSnapshot.current().contains(floor)) {
             return Optional.empty(); // Floor is under maintenance
         }
+        if (unavailableFloors(spotType, 1, Set.of()).contains(floor)) {
+            return Optional.empty(); // Remaining spots are held for reservations
+        }
+        return claimOnFloor(spotType, floor);
+    }
+    
+    private Optional<ParkingSpot> claimOnFloor(ParkingSpotType spotType, int floor) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Optional<SpotEntry> entry = availabilityIndex.claimFirstOnFloor(spotType, floor);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<ParkingSpot> spot = occupyClaimedSpot(entry.get());
+            if (spot.isPresent()) {
+                return spot;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    private Optional<List<ParkingSpot>> findAvailableRun(ParkingSpotType spotType, int length, Set<Integer> maintenanceFloors) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Optional<List<SpotEntry>> run = availabilityIndex.claimRun(spotType, length, maintenanceFloors);
+            if (run.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<List<ParkingSpot>> spots = occupyClaimedRun(run.get());
+            if (spots.isPresent()) {
+                return spots;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Occupy a run claimed from the index all-or-nothing. If any spot in the run was taken
+     * elsewhere, the spots already occupied here are released, the rest go back to the index
+     * and the stale entry is dropped.
+     */
+    private Optional<List<ParkingSpot>> occupyClaimedRun(List<SpotEntry> run) {
+        List<Long> claimedIds = new ArrayList<>(run.size());
+        for (SpotEntry entry : run) {
+            if (parkingSpotRepository.claimIfAvailable(entry.id()) == 0) {
+                if (!claimedIds.isEmpty()) {
+                    parkingSpotRepository.releaseAll(claimedIds);
+                }
+                run.stream().filter(other -> !other.equals(entry)).forEach(availabilityIndex::add);
+                return Optional.empty();
+            }
+            claimedIds.add(entry.id());
+        }
+        if (maintenanceFloorSnapshot.current().contains(run.get(0).floor())) {
+            parkingSpotRepository.releaseAll(claimedIds);
+            TransactionCallbacks.afterCompletion(() -> run.forEach(availabilityIndex::add));
+            return Optional.empty();
+        }
+        TransactionCallbacks.afterRollback(() -> run.forEach(availabilityIndex::add));
         
-        List<ParkingSpot> availableSpots = parkingSpotRepository
-            .findAvailableSpotsByTypeAndFloor(spotType, floor);
+        List<ParkingSpot> spots = new ArrayList<>(parkingSpotRepository.findAllById(claimedIds));
+        spots.sort(Comparator.comparing(ParkingSpot::getPosition));
+        spots.forEach(ParkingSpot::occupy);
+        occupancyCounters.spotsOccupied(spots);
+        return Optional.of(spots);
+    }
+    
+    /**
+     * Floors a walk-in needing this many spots of a type must skip: those under maintenance, and those
+     * whose free spots would drop below what is reserved there right now for vehicles yet to arrive.
+     */
+    private Set<Integer> unavailableFloors(ParkingSpotType spotType, int needed, Set<Integer> maintenanceFloors) {
+        Map<Integer, Integer> reserved = reservationCalendar.pendingNow(spotType);
+        if (reserved.isEmpty()) {
+            return maintenanceFloors;
+        }
+        Set<Integer> excluded = new HashSet<>(maintenanceFloors);
+        reserved.forEach((floor, count) -> {
+            if (availabilityIndex.countFree(spotType, floor) - count < needed) {
+                excluded.add(floor);
+            }
+        });
+        return excluded;
+    }
+    
+    /**
+     * The single-spot methods cannot hand a bus the run it needs, so they refuse one outright.
+     */
+    private void requireSingleSpot(VehicleType vehicleType) {
+        if (requiredRunLength(vehicleType) != 1) {
+            throw new IllegalArgumentException(vehicleType + " needs " + requiredRunLength(vehicleType)
+                + " adjacent spots; allocate it with allocateSpots");
+        }
+    }
+    
+    /**
+     * Buses need a run of adjacent spots; every other vehicle fits in one.
+     */
+    private int requiredRunLength(VehicleType vehicleType) {
+        return vehicleType == VehicleType.BUS ? vehicleType.getSpotsRequired() : 1;
+    }
+    
+    /**
+     * Occupy a spot claimed from the index with a conditional update, so two transactions can never
+     * both win the same row. The claim is handed back if the transaction rolls back; entries whose
+     * spot is gone or was taken elsewhere are dropped and the caller moves on to the next candidate.
+     * A floor closed for maintenance between picking the entry and locking its row is re-checked
+     * once the row is held, and the spot handed back once this transaction ends.
+     */
+    private Optional<ParkingSpot> occupyClaimedSpot(SpotEntry entry) {
+        if (parkingSpotRepository.claimIfAvailable(entry.id()) == 0) {
+            return Optional.empty();
+        }
+        if (maintenanceFloorSnapshot.current().contains(entry.floor())) {
+            parkingSpotRepository.releaseAll(List.of(entry.id()));
+            TransactionCallbacks.afterCompletion(() -> availabilityIndex.add(entry));
+            return Optional.empty();
+        }
+        TransactionCallbacks.afterRollback(() -> availabilityIndex.add(entry));
         
-        return availableSpots.isEmpty() ? Optional.empty() : Optional.of(availableSpots.get(0));
+        ParkingSpot spot = parkingSpotRepository.findById(entry.id()).orElseThrow();
+        spot.occupy(); // keep an already-managed instance in step with the row
+        occupancyCounters.spotsOccupied(List.of(spot));
+        return Optional.of(spot);
     }
     
     public void freeSpot(ParkingSpot spot) {
-        spot.free();
-        parkingSpotRepository.save(spot);
+        freeSpots(List.of(spot));
+    }
+    
+    /**
+     * Free every spot held by a ticket. A run is merged back into the index as a whole.
+     */
+    public void freeSpots(List<ParkingSpot> spots) {
+        List<SpotEntry> entries = new ArrayList<>(spots.size());
+        for (ParkingSpot spot : spots) {
+            spot.free();
+            parkingSpotRepository.save(spot);
+            entries.add(SpotEntry.of(spot));
+        }
+        
+        // Only offer the spots to other entries once the exit is committed
+        TransactionCallbacks.afterCommit(() -> entries.forEach(availabilityIndex::add));
+        occupancyCounters.spotsFreed(spots);
     }
     
     public long getAvailableSpotCount() {
@@ -0,0 +1,92 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.dto.DwellTimeStats;
+import learn.spring.smart_parking_lot.dto.LatencyStats;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dwell time of completed stays per vehicle type and floor, and handling time of entry and exit
+ * requests, kept in {@link LogHistogram}s since startup.
+ */
+@Component
+@LotScoped
+public class ParkingStatistics {
+
+    // A year; longer stays are counted as a year
+    private static final long MAX_DWELL_MINUTES = TimeUnit.DAYS.toMinutes(365);
+    // A minute; slower requests are counted as a minute
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    public enum RequestType {
+        ENTRY, EXIT, ENTRY_BATCH, EXIT_BATCH
+    }
+
+    private final Map<VehicleType, ConcurrentHashMap<Integer, LogHistogram>> dwellTimes = new EnumMap<>(VehicleType.class);
+    private final Map<RequestType, LogHistogram> latencies = new EnumMap<>(RequestType.class);
+
+    public ParkingStatistics() {
+        for (VehicleType vehicleType : VehicleType.values()) {
+            dwellTimes.put(vehicleType, new ConcurrentHashMap<>());
+        }
+        for (RequestType requestType : RequestType.values()) {
+            latencies.put(requestType, new LogHistogram(MAX_LATENCY_MICROS));
+        }
+    }
+
+    /**
+     * Count a completed stay once the exit commits.
+     */
+    void recordDwell(VehicleType vehicleType, int floor, long minutes) {
+        TransactionCallbacks.afterCommit(() -> dwellTimes.get(vehicleType)
+            .computeIfAbsent(floor, key -> new LogHistogram(MAX_DWELL_MINUTES))
+            .record(Math.max(0, minutes)));
+    }
+
+    public void recordLatency(RequestType requestType, long nanos) {
+        latencies.get(requestType).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Per vehicle type: one entry for all floors, followed by one per floor in floor order.
+     */
+    public List<DwellTimeStats> getDwellTimeStats() {
+        List<DwellTimeStats> stats = new ArrayList<>();
+        for (VehicleType vehicleType : VehicleType.values()) {
+            Map<Integer, LogHistogram.Snapshot> byFloor = new TreeMap<>();
+            dwellTimes.get(vehicleType).forEach((floor, histogram) -> byFloor.put(floor, histogram.snapshot()));
+            LogHistogram.Snapshot allFloors = byFloor.values().stream()
+                .reduce(LogHistogram.Snapshot::merge)
+                .orElseGet(() -> new LogHistogram(MAX_DWELL_MINUTES).snapshot());
+            stats.add(dwellTimeStats(vehicleType, null, allFloors));
+            byFloor.forEach((floor, snapshot) -> stats.add(dwellTimeStats(vehicleType, floor, snapshot)));
+        }
+        return stats;
+    }
+
+    public List<LatencyStats> getLatencyStats() {
+        List<LatencyStats> stats = new ArrayList<>();
+        latencies.forEach((requestType, histogram) -> {
+            LogHistogram.Snapshot snapshot = histogram.snapshot();
+            stats.add(new LatencyStats(requestType.name(), snapshot.getTotalCount(),
+                snapshot.getValueAtPercentile(50), snapshot.getValueAtPercentile(90),
+                snapshot.getValueAtPercentile(99), snapshot.getMaxValue()));
+        });
+        return stats;
+    }
+
+    private static DwellTimeStats dwellTimeStats(VehicleType vehicleType, Integer floor, LogHistogram.Snapshot snapshot) {
+        return new DwellTimeStats(vehicleType, floor, snapshot.getTotalCount(),
+            snapshot.getValueAtPercentile(50), snapshot.getValueAtPercentile(90),
+            snapshot.getValueAtPercentile(99), snapshot.getMaxValue());
+    }
+}
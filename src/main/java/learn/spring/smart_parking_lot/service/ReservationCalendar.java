@@ -0,0 +1,171 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.model.ReservationStatus;
+import learn.spring.smart_parking_lot.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Capacity calendars for every spot type and floor, covering from the start of today to the end
+ * of the booking horizon in fixed slots. Two calendars are kept per floor: booked counts every
+ * reservation holding capacity (for new bookings), pending only those whose vehicle has not
+ * arrived yet (for holding spots back from walk-ins).
+ */
+@Component
+@LotScoped
+public class ReservationCalendar {
+
+    private final ReservationRepository reservationRepository;
+    private final int slotMinutes;
+    private final int horizonDays;
+    private volatile Calendars calendars;
+
+    @Autowired
+    public ReservationCalendar(ReservationRepository reservationRepository,
+                               @Value("${parking.reservation.slot-minutes:15}") int slotMinutes,
+                               @Value("${parking.reservation.horizon-days:7}") int horizonDays) {
+        this.reservationRepository = reservationRepository;
+        this.slotMinutes = slotMinutes;
+        this.horizonDays = horizonDays;
+        this.calendars = emptyCalendars();
+    }
+
+    /**
+     * Reload open reservations from the database, moving the calendar start to today.
+     * Runs when the lot is opened and just after midnight so the horizon keeps rolling forward.
+     */
+    @EventListener(LotOpenedEvent.class)
+    public synchronized void rebuild() {
+        Calendars next = emptyCalendars();
+        for (Reservation reservation : reservationRepository.findByStatusInAndEndTimeAfter(
+                Set.of(ReservationStatus.CONFIRMED, ReservationStatus.FULFILLED), next.origin())) {
+            int from = next.slotAtOrBefore(reservation.getStartTime());
+            int to = next.slotAfter(reservation.getEndTime());
+            next.calendar(next.booked(), reservation.getSpotType(), reservation.getFloorNumber()).add(from, to, 1);
+            if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+                next.calendar(next.pending(), reservation.getSpotType(), reservation.getFloorNumber()).add(from, to, 1);
+            }
+        }
+        calendars = next;
+    }
+
+    public LocalDateTime getHorizonEnd() {
+        return LocalDate.now().plusDays(horizonDays + 1L).atStartOfDay();
+    }
+
+    /**
+     * Highest number of spots of a type booked on a floor at any point in [start, end).
+     */
+    public int peakBooked(ParkingSpotType spotType, int floor, LocalDateTime start, LocalDateTime end) {
+        Calendars current = calendars;
+        CapacityCalendar calendar = current.booked().get(spotType).get(floor);
+        return calendar == null ? 0 : calendar.max(current.slotAtOrBefore(start), current.slotAfter(end));
+    }
+
+    /**
+     * Book one spot of a type on a floor for [start, end) if the floor stays within capacity throughout.
+     */
+    synchronized boolean tryBook(ParkingSpotType spotType, int floor, LocalDateTime start, LocalDateTime end,
+                                 int capacity) {
+        Calendars current = calendars;
+        int from = current.slotAtOrBefore(start);
+        int to = current.slotAfter(end);
+        if (!current.calendar(current.booked(), spotType, floor).addIfBelow(from, to, capacity)) {
+            return false;
+        }
+        current.calendar(current.pending(), spotType, floor).add(from, to, 1);
+        return true;
+    }
+
+    /**
+     * Give a cancelled or expired reservation's capacity back.
+     */
+    synchronized void release(Reservation reservation) {
+        Calendars current = calendars;
+        int from = current.slotAtOrBefore(reservation.getStartTime());
+        int to = current.slotAfter(reservation.getEndTime());
+        current.calendar(current.booked(), reservation.getSpotType(), reservation.getFloorNumber()).add(from, to, -1);
+        current.calendar(current.pending(), reservation.getSpotType(), reservation.getFloorNumber()).add(from, to, -1);
+    }
+
+    /**
+     * The vehicle has arrived and holds a real spot, so walk-ins no longer need to leave one free.
+     */
+    synchronized void markArrived(Reservation reservation) {
+        Calendars current = calendars;
+        current.calendar(current.pending(), reservation.getSpotType(), reservation.getFloorNumber())
+            .add(current.slotAtOrBefore(reservation.getStartTime()), current.slotAfter(reservation.getEndTime()), -1);
+    }
+
+    /**
+     * Spots of a type on each floor that are reserved right now for vehicles that have not arrived.
+     * Floors with nothing pending are left out.
+     */
+    public Map<Integer, Integer> pendingNow(ParkingSpotType spotType) {
+        Calendars current = calendars;
+        Map<Integer, CapacityCalendar> floors = current.pending().get(spotType);
+        if (floors.isEmpty()) {
+            return Map.of();
+        }
+        int slot = Math.min(current.slotAtOrBefore(LocalDateTime.now()), current.slots() - 1);
+        Map<Integer, Integer> pending = new ConcurrentSkipListMap<>();
+        floors.forEach((floor, calendar) -> {
+            int count = calendar.at(slot);
+            if (count > 0) {
+                pending.put(floor, count);
+            }
+        });
+        return pending;
+    }
+
+    private Calendars emptyCalendars() {
+        LocalDateTime origin = LocalDate.now().atStartOfDay();
+        // One extra day so the calendar still reaches the horizon until the next midnight rebuild
+        int slots = (int) (Duration.ofDays(horizonDays + 2L).toMinutes() / slotMinutes);
+        return new Calendars(origin, slotMinutes, slots, perType(), perType());
+    }
+
+    private static Map<ParkingSpotType, Map<Integer, CapacityCalendar>> perType() {
+        Map<ParkingSpotType, Map<Integer, CapacityCalendar>> calendars = new EnumMap<>(ParkingSpotType.class);
+        for (ParkingSpotType type : ParkingSpotType.values()) {
+            calendars.put(type, new ConcurrentSkipListMap<>());
+        }
+        return calendars;
+    }
+
+    private record Calendars(LocalDateTime origin, int slotMinutes, int slots,
+                             Map<ParkingSpotType, Map<Integer, CapacityCalendar>> booked,
+                             Map<ParkingSpotType, Map<Integer, CapacityCalendar>> pending) {
+
+        CapacityCalendar calendar(Map<ParkingSpotType, Map<Integer, CapacityCalendar>> calendars,
+                                  ParkingSpotType spotType, int floor) {
+            return calendars.get(spotType).computeIfAbsent(floor, f -> new CapacityCalendar(slots));
+        }
+
+        // Slot containing the time, clamped to the calendar
+        int slotAtOrBefore(LocalDateTime time) {
+            long minutes = Duration.between(origin, time).toMinutes();
+            return (int) Math.max(0, Math.min(slots, Math.floorDiv(minutes, slotMinutes)));
+        }
+
+        // First slot entirely after the time, clamped to the calendar
+        int slotAfter(LocalDateTime time) {
+            long minutes = Duration.between(origin, time).toMinutes();
+            long slot = Math.floorDiv(minutes + slotMinutes - 1, slotMinutes);
+            return (int) Math.max(0, Math.min(slots, slot));
+        }
+    }
+}
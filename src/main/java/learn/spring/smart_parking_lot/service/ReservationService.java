@@ -0,0 +1,166 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.exception.NoAvailableSpotException;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.exception.ReservationNotFoundException;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.model.ReservationStatus;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Transactional
+public class ReservationService {
+    
+    private final ReservationRepository reservationRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final ReservationCalendar reservationCalendar;
+    private final MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+    private final TicketNumberGenerator ticketNumberGenerator;
+    private final int graceMinutes;
+    
+    @Autowired
+    public ReservationService(ReservationRepository reservationRepository,
+                              ParkingSpotRepository parkingSpotRepository,
+                              ReservationCalendar reservationCalendar,
+                              MaintenanceFloorSnapshot maintenanceFloorSnapshot,
+                              TicketNumberGenerator ticketNumberGenerator,
+                              @Value("${parking.reservation.grace-minutes:15}") int graceMinutes) {
+        this.reservationRepository = reservationRepository;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.reservationCalendar = reservationCalendar;
+        this.maintenanceFloorSnapshot = maintenanceFloorSnapshot;
+        this.ticketNumberGenerator = ticketNumberGenerator;
+        this.graceMinutes = graceMinutes;
+    }
+    
+    /**
+     * Book one spot of a type for a time window on the lowest floor with capacity left throughout it.
+     */
+    public Reservation createReservation(String licensePlate, ParkingSpotType spotType,
+                                         LocalDateTime startTime, LocalDateTime endTime) {
+        validateWindow(startTime, endTime);
+        if (reservationRepository.existsConfirmedOverlapping(licensePlate, startTime, endTime)) {
+            throw new ParkingLotException("Vehicle already has a reservation overlapping this time window");
+        }
+    
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        for (Map.Entry<Integer, Integer> floor : spotCountsByFloor(spotType).entrySet()) {
+            if (maintenanceFloors.contains(floor.getKey())) {
+                continue;
+            }
+            if (reservationCalendar.tryBook(spotType, floor.getKey(), startTime, endTime, floor.getValue())) {
+                Reservation reservation = new Reservation(ticketNumberGenerator.nextReservationNumber(), licensePlate, spotType,
+                    floor.getKey(), startTime, endTime);
+                // Capacity is held from now on; hand it back if the booking does not commit
+                TransactionCallbacks.afterRollback(() -> reservationCalendar.release(reservation));
+                return reservationRepository.save(reservation);
+            }
+        }
+        throw new NoAvailableSpotException("No " + spotType + " spot can be reserved from " + startTime + " to " + endTime);
+    }
+    
+    /**
+     * Number of spots of a type that can still be reserved for the whole of [startTime, endTime).
+     */
+    @Transactional(readOnly = true)
+    public long getAvailableCapacity(ParkingSpotType spotType, LocalDateTime startTime, LocalDateTime endTime) {
+        validateWindow(startTime, endTime);
+        Set<Integer> maintenanceFloors = maintenanceFloorSnapshot.current();
+        long available = 0;
+        for (Map.Entry<Integer, Integer> floor : spotCountsByFloor(spotType).entrySet()) {
+            if (!maintenanceFloors.contains(floor.getKey())) {
+                int booked = reservationCalendar.peakBooked(spotType, floor.getKey(), startTime, endTime);
+                available += Math.max(0, floor.getValue() - booked);
+            }
+        }
+        return available;
+    }
+    
+    @Transactional(readOnly = true)
+    public Reservation getReservation(String reservationNumber) {
+        return reservationRepository.findByReservationNumber(reservationNumber)
+            .orElseThrow(() -> new ReservationNotFoundException("Reservation not found: " + reservationNumber));
+    }
+    
+    public Reservation cancelReservation(String reservationNumber) {
+        Reservation reservation = getReservation(reservationNumber);
+        if (reservation.getStatus() != ReservationStatus.CONFIRMED) {
+            throw new ParkingLotException("Reservation " + reservationNumber + " is " + reservation.getStatus()
+                + " and can no longer be cancelled");
+        }
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        TransactionCallbacks.afterCommit(() -> reservationCalendar.release(reservation));
+        return reservationRepository.save(reservation);
+    }
+    
+    /**
+     * Confirmed reservations usable by vehicles arriving now, by license plate. A vehicle may arrive
+     * up to the grace period before its window opens.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Reservation> findArrivals(Collection<String> licensePlates, LocalDateTime arrivalTime) {
+        Map<String, Reservation> arrivals = new HashMap<>();
+        for (Reservation reservation : reservationRepository.findArrivals(
+                licensePlates, arrivalTime.plusMinutes(graceMinutes), arrivalTime)) {
+            arrivals.putIfAbsent(reservation.getLicensePlate(), reservation);
+        }
+        return arrivals;
+    }
+    
+    /**
+     * The reserved vehicle has parked; its spot now counts as occupied rather than held back.
+     */
+    public void markFulfilled(Reservation reservation) {
+        reservation.setStatus(ReservationStatus.FULFILLED);
+        reservationRepository.save(reservation);
+        TransactionCallbacks.afterCommit(() -> reservationCalendar.markArrived(reservation));
+    }
+    
+    /**
+     * Release reservations whose vehicle did not turn up within the grace period after the window opened.
+     * Run for every lot by {@link LotTasks}.
+     */
+    public void expireNoShows() {
+        List<Reservation> noShows = reservationRepository.findByStatusAndStartTimeBefore(
+            ReservationStatus.CONFIRMED, LocalDateTime.now().minusMinutes(graceMinutes));
+        for (Reservation reservation : noShows) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+        }
+        reservationRepository.saveAll(noShows);
+        TransactionCallbacks.afterCommit(() -> noShows.forEach(reservationCalendar::release));
+    }
+    
+    private void validateWindow(LocalDateTime startTime, LocalDateTime endTime) {
+        if (!startTime.isBefore(endTime)) {
+            throw new ParkingLotException("Reservation start time must be before its end time");
+        }
+        if (endTime.isBefore(LocalDateTime.now())) {
+            throw new ParkingLotException("Reservation window has already ended");
+        }
+        if (endTime.isAfter(reservationCalendar.getHorizonEnd())) {
+            throw new ParkingLotException("Reservations can only be made up to " + reservationCalendar.getHorizonEnd());
+        }
+    }
+    
+    private Map<Integer, Integer> spotCountsByFloor(ParkingSpotType spotType) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (Object[] row : parkingSpotRepository.countSpotsByFloor(spotType)) {
+            counts.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,416 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotScoped;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.service.strategy.AllocationStrategy;
+import learn.spring.smart_parking_lot.service.strategy.AllocationStrategy.FloorCandidate;
+import learn.spring.smart_parking_lot.service.strategy.FirstFitStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of free parking spots, split into lock stripes keyed by floor and spot type.
+ * Each stripe is a priority queue ordered by the rank the configured {@link AllocationStrategy}
+ * gives a spot when it enters the index, with spot number as the tie-breaker, so with the
+ * default first-fit strategy the result matches the "ORDER BY floor, spotNumber" queries.
+ * Entries for different floors never share a lock. Each stripe also indexes runs of adjacent
+ * free spots for vehicles that need more than one. The index only tracks availability;
+ * callers decide when a change becomes visible.
+ */
+@Component
+@LotScoped
+public class SpotAvailabilityIndex {
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final AllocationStrategy strategy;
+    private final Comparator<FloorCandidate> floorPreference;
+    private final Map<ParkingSpotType, ConcurrentSkipListMap<Integer, Stripe>> stripes =
+        new EnumMap<>(ParkingSpotType.class);
+    // Floors claims may come from; null means every floor
+    private volatile Set<Integer> allocatableFloors;
+
+    @Autowired
+    public SpotAvailabilityIndex(ParkingSpotRepository parkingSpotRepository,
+                                 List<AllocationStrategy> strategies,
+                                 @Value("${parking.allocation.strategy:" + FirstFitStrategy.NAME + "}") String strategyName) {
+        this(parkingSpotRepository, strategies.stream()
+            .filter(strategy -> strategy.getName().equals(strategyName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown allocation strategy: " + strategyName)));
+    }
+
+    public SpotAvailabilityIndex(ParkingSpotRepository parkingSpotRepository, AllocationStrategy strategy) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.strategy = strategy;
+        this.floorPreference = strategy.floorPreference();
+        for (ParkingSpotType type : ParkingSpotType.values()) {
+            stripes.put(type, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Load every free spot of the lot from the database. Runs when the lot is opened.
+     */
+    @EventListener(LotOpenedEvent.class)
+    public void rebuild() {
+        stripes.values().forEach(Map::clear);
+        parkingSpotRepository.findByIsAvailableTrue().forEach(this::add);
+    }
+
+    public AllocationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Only claim spots on these floors, e.g. the floors this instance holds a lease on.
+     * Spots on other floors are still tracked but never handed out. Null lifts the restriction.
+     */
+    public void setAllocatableFloors(Set<Integer> floors) {
+        this.allocatableFloors = floors == null ? null : Set.copyOf(floors);
+    }
+
+    /**
+     * Replace everything the index holds for a floor with that floor's free spots as read from the database.
+     */
+    public void replaceFloor(int floor, Collection<ParkingSpot> freeSpots) {
+        Map<ParkingSpotType, List<Ranked>> byType = new EnumMap<>(ParkingSpotType.class);
+        for (ParkingSpotType type : ParkingSpotType.values()) {
+            byType.put(type, new ArrayList<>());
+        }
+        for (ParkingSpot spot : freeSpots) {
+            SpotEntry entry = SpotEntry.of(spot);
+            byType.get(entry.spotType()).add(new Ranked(strategy.rank(entry), entry));
+        }
+        byType.forEach((type, entries) ->
+            stripes.get(type).computeIfAbsent(floor, f -> new Stripe()).replaceAll(entries));
+    }
+
+    /**
+     * Remove and return the best free spot of a type, skipping excluded floors.
+     * The strategy picks the floor; that floor's stripe pops its lowest-ranked spot.
+     */
+    public Optional<SpotEntry> claimFirst(ParkingSpotType spotType, Collection<Integer> excludedFloors) {
+        Stripe stripe;
+        while ((stripe = selectStripe(spotType, excludedFloors, 1)) != null) {
+            SpotEntry entry = stripe.pollFirst();
+            if (entry != null) {
+                return Optional.of(entry);
+            }
+            // Drained by a concurrent claim since it was selected; choose again
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Remove and return the best free spot of a type on a specific floor, touching only that floor's stripe.
+     */
+    public Optional<SpotEntry> claimFirstOnFloor(ParkingSpotType spotType, int floor) {
+        Stripe stripe = isAllocatable(floor) ? stripes.get(spotType).get(floor) : null;
+        return stripe == null ? Optional.empty() : Optional.ofNullable(stripe.pollFirst());
+    }
+
+    /**
+     * Remove and return a run of adjacent free spots of a type on one floor, skipping excluded floors.
+     * Floors are tried in the strategy's order; within a floor the shortest run that fits is used.
+     */
+    public Optional<List<SpotEntry>> claimRun(ParkingSpotType spotType, int length, Collection<Integer> excludedFloors) {
+        List<FloorCandidate> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, Stripe> stripe : stripes.get(spotType).entrySet()) {
+            if (!excludedFloors.contains(stripe.getKey()) && isAllocatable(stripe.getKey())
+                    && stripe.getValue().size() >= length) {
+                candidates.add(stripe.getValue().candidate(stripe.getKey()));
+            }
+        }
+        candidates.sort(floorPreference);
+        for (FloorCandidate candidate : candidates) {
+            List<SpotEntry> run = stripes.get(spotType).get(candidate.floor()).pollRun(length);
+            if (run != null) {
+                return Optional.of(run);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void add(ParkingSpot spot) {
+        add(SpotEntry.of(spot));
+    }
+
+    public void add(SpotEntry entry) {
+        stripes.get(entry.spotType())
+            .computeIfAbsent(entry.floor(), floor -> new Stripe())
+            .add(new Ranked(strategy.rank(entry), entry));
+    }
+
+    public boolean remove(ParkingSpot spot) {
+        return remove(SpotEntry.of(spot));
+    }
+
+    public boolean remove(SpotEntry entry) {
+        Stripe stripe = stripes.get(entry.spotType()).get(entry.floor());
+        return stripe != null && stripe.remove(new Ranked(strategy.rank(entry), entry));
+    }
+
+    public boolean contains(ParkingSpot spot) {
+        SpotEntry entry = SpotEntry.of(spot);
+        Stripe stripe = stripes.get(entry.spotType()).get(entry.floor());
+        return stripe != null && stripe.contains(new Ranked(strategy.rank(entry), entry));
+    }
+
+    public int countFree(ParkingSpotType spotType) {
+        return stripes.get(spotType).values().stream().mapToInt(Stripe::size).sum();
+    }
+
+    public int countFree(ParkingSpotType spotType, int floor) {
+        Stripe stripe = stripes.get(spotType).get(floor);
+        return stripe == null ? 0 : stripe.size();
+    }
+
+    ReentrantLock stripeLock(ParkingSpotType spotType, int floor) {
+        return stripes.get(spotType).computeIfAbsent(floor, f -> new Stripe()).lock;
+    }
+
+    private boolean isAllocatable(int floor) {
+        Set<Integer> floors = allocatableFloors;
+        return floors == null || floors.contains(floor);
+    }
+
+    private Stripe selectStripe(ParkingSpotType spotType, Collection<Integer> excludedFloors, int minimumFree) {
+        Stripe best = null;
+        FloorCandidate bestCandidate = null;
+        for (Map.Entry<Integer, Stripe> stripe : stripes.get(spotType).entrySet()) {
+            if (excludedFloors.contains(stripe.getKey()) || !isAllocatable(stripe.getKey())
+                    || stripe.getValue().size() < minimumFree) {
+                continue;
+            }
+            FloorCandidate candidate = stripe.getValue().candidate(stripe.getKey());
+            if (bestCandidate == null || floorPreference.compare(candidate, bestCandidate) < 0) {
+                best = stripe.getValue();
+                bestCandidate = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Free spots of one type on one floor, guarded by their own lock. Spots with a position are
+     * also tracked as runs of consecutive free positions, indexed by start and by length.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeSet<Ranked> entries = new TreeSet<>();
+        private final TreeMap<Integer, Ranked> byPosition = new TreeMap<>();
+        private final TreeMap<Integer, Integer> segments = new TreeMap<>();
+        private final TreeMap<Integer, TreeSet<Integer>> segmentStartsByLength = new TreeMap<>();
+        // Read without the lock so floors can be compared and exhausted stripes skipped cheaply
+        private volatile int size;
+        private volatile long headRank = Long.MAX_VALUE;
+
+        FloorCandidate candidate(int floor) {
+            return new FloorCandidate(floor, headRank, size);
+        }
+
+        SpotEntry pollFirst() {
+            if (size == 0) {
+                return null;
+            }
+            lock.lock();
+            try {
+                Ranked head = entries.isEmpty() ? null : entries.first();
+                if (head == null) {
+                    return null;
+                }
+                removeLocked(head);
+                return head.entry();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the smallest free run that fits, lowest position first among equal lengths.
+         */
+        List<SpotEntry> pollRun(int length) {
+            if (size < length) {
+                return null;
+            }
+            lock.lock();
+            try {
+                Map.Entry<Integer, TreeSet<Integer>> fit = segmentStartsByLength.ceilingEntry(length);
+                if (fit == null) {
+                    return null;
+                }
+                int start = fit.getValue().first();
+                List<SpotEntry> run = new ArrayList<>(length);
+                for (int position = start; position < start + length; position++) {
+                    Ranked ranked = byPosition.get(position);
+                    run.add(ranked.entry());
+                    removeLocked(ranked);
+                }
+                return run;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void add(Ranked ranked) {
+            lock.lock();
+            try {
+                Integer position = ranked.entry().position();
+                if (entries.add(ranked) && position != null && byPosition.putIfAbsent(position, ranked) == null) {
+                    insertPosition(position);
+                }
+                updateSummary();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void replaceAll(List<Ranked> fresh) {
+            lock.lock();
+            try {
+                entries.clear();
+                byPosition.clear();
+                segments.clear();
+                segmentStartsByLength.clear();
+                for (Ranked ranked : fresh) {
+                    Integer position = ranked.entry().position();
+                    if (entries.add(ranked) && position != null && byPosition.putIfAbsent(position, ranked) == null) {
+                        insertPosition(position);
+                    }
+                }
+                updateSummary();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean remove(Ranked ranked) {
+            lock.lock();
+            try {
+                return removeLocked(ranked);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean contains(Ranked ranked) {
+            lock.lock();
+            try {
+                return entries.contains(ranked);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private boolean removeLocked(Ranked ranked) {
+            boolean removed = entries.remove(ranked);
+            Integer position = ranked.entry().position();
+            if (removed && position != null && byPosition.remove(position, ranked)) {
+                removePosition(position);
+            }
+            updateSummary();
+            return removed;
+        }
+
+        private void updateSummary() {
+            headRank = entries.isEmpty() ? Long.MAX_VALUE : entries.first().rank();
+            size = entries.size();
+        }
+
+        // Merge a newly free position with the runs on either side of it
+        private void insertPosition(int position) {
+            int start = position;
+            int length = 1;
+            Map.Entry<Integer, Integer> left = segments.floorEntry(position - 1);
+            if (left != null && left.getKey() + left.getValue() == position) {
+                unlinkSegment(left.getKey(), left.getValue());
+                start = left.getKey();
+                length += left.getValue();
+            }
+            Integer rightLength = segments.get(position + 1);
+            if (rightLength != null) {
+                unlinkSegment(position + 1, rightLength);
+                length += rightLength;
+            }
+            linkSegment(start, length);
+        }
+
+        // Split the run containing a position that is no longer free
+        private void removePosition(int position) {
+            Map.Entry<Integer, Integer> segment = segments.floorEntry(position);
+            int start = segment.getKey();
+            int end = start + segment.getValue();
+            unlinkSegment(start, segment.getValue());
+            if (position > start) {
+                linkSegment(start, position - start);
+            }
+            if (position + 1 < end) {
+                linkSegment(position + 1, end - position - 1);
+            }
+        }
+
+        private void linkSegment(int start, int length) {
+            segments.put(start, length);
+            segmentStartsByLength.computeIfAbsent(length, l -> new TreeSet<>()).add(start);
+        }
+
+        private void unlinkSegment(int start, int length) {
+            segments.remove(start);
+            TreeSet<Integer> starts = segmentStartsByLength.get(length);
+            starts.remove(start);
+            if (starts.isEmpty()) {
+                segmentStartsByLength.remove(length);
+            }
+        }
+    }
+
+    /**
+     * A free spot with the rank it was given when it entered the index.
+     */
+    private record Ranked(long rank, SpotEntry entry) implements Comparable<Ranked> {
+        @Override
+        public int compareTo(Ranked other) {
+            int byRank = Long.compare(rank, other.rank);
+            return byRank != 0 ? byRank : entry.compareTo(other.entry);
+        }
+    }
+
+    /**
+     * Immutable key for a free spot, ordered like the spot-number queries.
+     */
+    public record SpotEntry(Long id, String spotNumber, int floor, ParkingSpotType spotType, Integer position)
+            implements Comparable<SpotEntry> {
+
+        public static SpotEntry of(ParkingSpot spot) {
+            return new SpotEntry(spot.getId(), spot.getSpotNumber(), spot.getFloor(), spot.getSpotType(),
+                spot.getPosition());
+        }
+
+        @Override
+        public int compareTo(SpotEntry other) {
+            int bySpotNumber = spotNumber.compareTo(other.spotNumber);
+            return bySpotNumber != 0 ? bySpotNumber : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.FloorPositionCounterRepository;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.SpotNumberCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out positions from a persisted counter per floor, and spot numbers from a persisted counter
+ * per floor and spot type, so adding a spot costs two counter updates however many spots the floor
+ * has. Positions run along the whole floor, so spots of different types never share one; the
+ * number only labels the spot. Provisioning a floor starts every counter after the floor's last
+ * position, so added spots never reuse a provisioned position or number.
+ *
+ * Each counter is taken with an UPDATE and then read back with a SELECT. The UPDATE keeps the row
+ * locked until the transaction ends, so no other transaction can move the counter in between and
+ * the SELECT reads back exactly the value this transaction wrote.
+ */
+@Component
+public class SpotNumberAllocator {
+    
+    // Floor, type prefix and number, as formatSpotNumber writes them
+    private static final Pattern SPOT_NUMBER = Pattern.compile("(\\d{1,9})-([MCL])-(\\d{1,9})");
+    
+    private final SpotNumberCounterRepository counterRepository;
+    private final FloorPositionCounterRepository positionCounterRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final TransactionTemplate seedTransaction;
+    
+    @Autowired
+    public SpotNumberAllocator(SpotNumberCounterRepository counterRepository,
+                               FloorPositionCounterRepository positionCounterRepository,
+                               ParkingSpotRepository parkingSpotRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.positionCounterRepository = positionCounterRepository;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * Reset a floor's counters so positions and every type's numbers continue after lastPosition.
+     * Runs in the caller's transaction.
+     */
+    public void startFloor(int floor, int lastPosition) {
+        startFloor(floor, lastPosition, Map.of());
+    }
+    
+    /**
+     * Reset a floor's counters like {@link #startFloor(int, int)}, but continue a type's numbers after
+     * lastNumbers when that is higher, for spots that were numbered elsewhere, such as an imported layout.
+     */
+    public void startFloor(int floor, int lastPosition, Map<ParkingSpotType, Integer> lastNumbers) {
+        String lotId = LotContext.currentLot();
+        // Position before type counters, the order nextPosition and nextNumber lock them in
+        positionCounterRepository.deleteByFloor(lotId, floor);
+        positionCounterRepository.insert(lotId, floor, lastPosition);
+        counterRepository.deleteByFloor(lotId, floor);
+        for (ParkingSpotType spotType : ParkingSpotType.values()) {
+            counterRepository.insert(lotId, floor, spotType.name(), Math.max(lastPosition, lastNumbers.getOrDefault(spotType, 0)));
+        }
+    }
+    
+    /**
+     * Take the next position along a floor. Concurrent callers wait on the counter row and never
+     * get the same position. Take it before the spot number, so callers lock the floor's counters
+     * in one order.
+     */
+    public int nextPosition(int floor) {
+        String lotId = LotContext.currentLot();
+        if (positionCounterRepository.increment(lotId, floor) == 0) {
+            seedCounter(() -> positionCounterRepository.insert(lotId, floor, parkingSpotRepository.findMaxPosition(floor)));
+            if (positionCounterRepository.increment(lotId, floor) == 0) {
+                throw new IllegalStateException("No position counter for floor " + floor);
+            }
+        }
+        return positionCounterRepository.findLastPosition(floor);
+    }
+    
+    /**
+     * Take the next spot number for a type on a floor. Concurrent callers wait on the counter row
+     * and never get the same number.
+     */
+    public int nextNumber(int floor, ParkingSpotType spotType) {
+        String lotId = LotContext.currentLot();
+        if (counterRepository.increment(lotId, floor, spotType) == 0) {
+            seedCounter(() -> counterRepository.insert(lotId, floor, spotType.name(), parkingSpotRepository.findMaxPosition(floor)));
+            if (counterRepository.increment(lotId, floor, spotType) == 0) {
+                throw new IllegalStateException("No spot number counter for floor " + floor + " and type " + spotType);
+            }
+        }
+        return counterRepository.findLastNumber(floor, spotType);
+    }
+    
+    public static String formatSpotNumber(int floor, ParkingSpotType spotType, int number) {
+        return String.format("%d-%s-%02d", floor, typePrefix(spotType), number);
+    }
+    
+    /**
+     * The floor, type and number of a spot number in the form formatSpotNumber writes, or empty for
+     * any other label.
+     */
+    public static Optional<SpotNumber> parseSpotNumber(String spotNumber) {
+        Matcher matcher = SPOT_NUMBER.matcher(spotNumber);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        ParkingSpotType spotType = switch (matcher.group(2)) {
+            case "M" -> ParkingSpotType.MOTORCYCLE;
+            case "C" -> ParkingSpotType.COMPACT;
+            default -> ParkingSpotType.LARGE;
+        };
+        return Optional.of(new SpotNumber(Integer.parseInt(matcher.group(1)), spotType, Integer.parseInt(matcher.group(3))));
+    }
+    
+    private static String typePrefix(ParkingSpotType spotType) {
+        return switch (spotType) {
+            case MOTORCYCLE -> "M";
+            case COMPACT -> "C";
+            case LARGE -> "L";
+        };
+    }
+    
+    /**
+     * Create a missing counter from the floor's committed spots. This runs once per counter, for
+     * floors whose spots were not provisioned through startFloor. It commits on its own so that
+     * losing the race to another admin call does not roll back the caller.
+     */
+    private void seedCounter(Runnable insert) {
+        try {
+            seedTransaction.executeWithoutResult(status -> insert.run());
+        } catch (DataIntegrityViolationException e) {
+            // Another transaction created it first
+        }
+    }
+    
+    public record SpotNumber(int floor, ParkingSpotType spotType, int number) {}
+}
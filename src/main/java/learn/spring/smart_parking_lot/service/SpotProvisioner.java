@@ -0,0 +1,90 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.persistence.EntityManager;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates spots in JDBC batches, for new floors and for layout imports. Spot ids come from a pooled
+ * sequence, so Hibernate can group the inserts, and each batch is flushed and detached once written
+ * so a large floor does not pile up in the persistence context.
+ */
+@Component
+public class SpotProvisioner {
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final EntityManager entityManager;
+    private final SpotNumberAllocator spotNumberAllocator;
+    private final int batchSize;
+
+    @Autowired
+    public SpotProvisioner(ParkingSpotRepository parkingSpotRepository, EntityManager entityManager,
+                           SpotNumberAllocator spotNumberAllocator,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.entityManager = entityManager;
+        this.spotNumberAllocator = spotNumberAllocator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Create motorcycle, then compact, then large spots along a floor, numbered by position.
+     *
+     * @return the created spots, detached
+     */
+    @Transactional
+    public List<ParkingSpot> createFloorSpots(int floor, int motorcycleSpots, int compactSpots, int largeSpots) {
+        List<ParkingSpot> createdSpots = new ArrayList<>(motorcycleSpots + compactSpots + largeSpots);
+        int position = 1;
+        for (int i = 0; i < motorcycleSpots; i++) {
+            createdSpots.add(newSpot(floor, ParkingSpotType.MOTORCYCLE, position++));
+        }
+        for (int i = 0; i < compactSpots; i++) {
+            createdSpots.add(newSpot(floor, ParkingSpotType.COMPACT, position++));
+        }
+        for (int i = 0; i < largeSpots; i++) {
+            createdSpots.add(newSpot(floor, ParkingSpotType.LARGE, position++));
+        }
+        spotNumberAllocator.startFloor(floor, position - 1);
+
+        for (int from = 0; from < createdSpots.size(); from += batchSize) {
+            insertBatch(createdSpots.subList(from, Math.min(from + batchSize, createdSpots.size())));
+        }
+
+        System.out.println("Floor " + floor + ": " + motorcycleSpots + " motorcycle, " +
+                          compactSpots + " compact, " + largeSpots + " large spots created");
+        return createdSpots;
+    }
+
+    /**
+     * Insert up to getBatchSize() new spots as one JDBC batch, then detach them. Only ever part of a
+     * larger unit of work, so a caller without a transaction fails instead of committing batch by
+     * batch. createFloorSpots calls this on itself, bypassing the proxy, and relies on its own
+     * transaction instead.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insertBatch(List<ParkingSpot> batch) {
+        parkingSpotRepository.saveAll(batch);
+        parkingSpotRepository.flush();
+        // Only our own spots, so entities the caller still holds stay managed
+        batch.forEach(entityManager::detach);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private static ParkingSpot newSpot(int floor, ParkingSpotType spotType, int position) {
+        String spotNumber = SpotNumberAllocator.formatSpotNumber(floor, spotType, position);
+        return new ParkingSpot(spotNumber, floor, spotType, position);
+    }
+}
@@ -0,0 +1,135 @@
+package learn.spring.smart_parking_lot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Writes tickets to a stream as they come off the database cursor, so an export of any size needs
+ * only the cursor's fetch window and the writer's buffer.
+ */
+@Service
+public class TicketExportService {
+
+    private static final String CSV_HEADER =
+        "ticket_number,license_plate,vehicle_type,spot_number,floor,entry_time,exit_time,status,fee,payment_time";
+
+    public enum ExportFormat {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        ExportFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Optional<ExportFormat> parse(String format) {
+            try {
+                return Optional.of(valueOf(format.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private final ParkingTicketRepository ticketRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TicketExportService(ParkingTicketRepository ticketRepository, ObjectMapper objectMapper) {
+        this.ticketRepository = ticketRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write tickets with the given status that entered in [from, to), in ticket order.
+     *
+     * @return the number of tickets written
+     */
+    @Transactional(readOnly = true)
+    public long exportTickets(TicketStatus status, LocalDateTime from, LocalDateTime to,
+                              ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+        try (Stream<TicketSummary> rows = ticketRepository.streamForExport(status, from, to)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<TicketSummary> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                TicketSummary row = iterator.next();
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                count++;
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsv(Writer writer, TicketSummary row) throws IOException {
+        writeCsvField(writer, row.getTicketNumber());
+        writer.write(',');
+        writeCsvField(writer, row.getLicensePlate());
+        writer.write(',');
+        writer.write(row.getVehicleType().name());
+        writer.write(',');
+        writeCsvField(writer, row.getSpotNumber());
+        writer.write(',');
+        writer.write(Integer.toString(row.getFloorNumber()));
+        writer.write(',');
+        writer.write(row.getEntryTime().toString());
+        writer.write(',');
+        if (row.getExitTime() != null) {
+            writer.write(row.getExitTime().toString());
+        }
+        writer.write(',');
+        writer.write(row.getStatus().name());
+        writer.write(',');
+        if (row.getFee() != null) {
+            writer.write(row.getFee().toPlainString());
+        }
+        writer.write(',');
+        if (row.getPaymentTime() != null) {
+            writer.write(row.getPaymentTime().toString());
+        }
+        writer.write('\n');
+    }
+
+    // Quoted only when it has to be, with embedded quotes doubled
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
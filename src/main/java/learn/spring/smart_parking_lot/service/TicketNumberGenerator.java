@@ -0,0 +1,82 @@
+package learn.spring.smart_parking_lot.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Unique, time-ordered ticket numbers of the form PKT-XXXXXXXXXXXXXXXX: a 64-bit id written as
+ * sixteen hex digits, made of the milliseconds since 2025-01-01 UTC, the node id and a per-millisecond
+ * sequence. Numbers sort by issue time, so new tickets land at the end of the ticket number index.
+ * Reservation numbers are the same ids with the prefix RSV-, taken from the same sequence.
+ *
+ * Lock-free: the last issued (millisecond, sequence) pair is advanced with a compare-and-set. When
+ * the sequence runs out within a millisecond, or the clock steps back, numbering carries on from the
+ * last issued millisecond instead of waiting, so numbers never repeat and never go backwards.
+ * Instances sharing one database need distinct node ids.
+ */
+@Component
+public class TicketNumberGenerator {
+
+    static final long EPOCH_MILLIS = 1_735_689_600_000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final String TICKET_PREFIX = "PKT-";
+    private static final String RESERVATION_PREFIX = "RSV-";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // Milliseconds since the epoch shifted left by SEQUENCE_BITS, plus the sequence; -1 before the first number
+    private final AtomicLong lastIssued = new AtomicLong(-1);
+
+    @Autowired
+    public TicketNumberGenerator(@Value("${parking.ticket.node-id:0}") int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TicketNumberGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Ticket node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public String nextTicketNumber() {
+        return format(TICKET_PREFIX, nextId());
+    }
+
+    public String nextReservationNumber() {
+        return format(RESERVATION_PREFIX, nextId());
+    }
+
+    long nextId() {
+        while (true) {
+            long last = lastIssued.get();
+            long millis = clock.getAsLong() - EPOCH_MILLIS;
+            // A later millisecond starts a new sequence; otherwise take the next sequence number,
+            // which carries into the millisecond once the sequence is used up
+            long next = millis > last >> SEQUENCE_BITS ? millis << SEQUENCE_BITS : last + 1;
+            if (lastIssued.compareAndSet(last, next)) {
+                long sequenceMask = (1L << SEQUENCE_BITS) - 1;
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & sequenceMask);
+            }
+        }
+    }
+
+    static String format(String prefix, long id) {
+        char[] chars = new char[prefix.length() + 16];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = chars.length - 1; i >= prefix.length(); i--) {
+            chars[i] = HEX_DIGITS[(int) (id & 0xF)];
+            id >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,64 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.TicketPage;
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pages through tickets by cursor. A cursor is the (entry time, id) of the last ticket on the page,
+ * so later pages are as cheap as the first and tickets added meanwhile never shift a page.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TicketSearchService {
+
+    private final ParkingTicketRepository ticketRepository;
+
+    @Autowired
+    public TicketSearchService(ParkingTicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    public TicketPage searchTickets(TicketSearchRequest request) {
+        Position after = request.getCursor() == null || request.getCursor().isBlank() ? null : decodeCursor(request.getCursor());
+        // One extra row tells whether there is a next page
+        List<TicketSummary> tickets = ticketRepository.search(request,
+            after != null ? after.entryTime() : null, after != null ? after.id() : null, request.getLimit() + 1);
+        if (tickets.size() <= request.getLimit()) {
+            return new TicketPage(tickets, null);
+        }
+        List<TicketSummary> page = new ArrayList<>(tickets.subList(0, request.getLimit()));
+        return new TicketPage(page, encodeCursor(page.get(page.size() - 1)));
+    }
+
+    private static String encodeCursor(TicketSummary last) {
+        String position = last.getEntryTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 2) {
+                return new Position(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Reported below
+        }
+        throw new ParkingLotException("Invalid cursor: " + cursor);
+    }
+
+    private record Position(LocalDateTime entryTime, long id) {}
+}
@@ -0,0 +1,38 @@
+package learn.spring.smart_parking_lot.service.strategy;
+
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+
+import java.util.Comparator;
+
+/**
+ * Decides which free spot an entry gets. Each spot's rank is computed once when it enters the
+ * availability index, so within a floor allocation is a priority-queue pop of the lowest rank.
+ * The floor to pop from is chosen by comparing one candidate per floor.
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Name used to select the strategy with the parking.allocation.strategy property.
+     */
+    String getName();
+
+    /**
+     * Rank of a free spot; lower ranks are allocated first. Must depend only on the spot itself.
+     */
+    long rank(SpotEntry spot);
+
+    /**
+     * Order in which floors are preferred. Defaults to the floor whose best spot has the lowest rank.
+     */
+    default Comparator<FloorCandidate> floorPreference() {
+        return Comparator.comparingLong(FloorCandidate::headRank).thenComparingInt(FloorCandidate::floor);
+    }
+
+    /**
+     * A floor that still has free spots of the requested type.
+     *
+     * @param headRank  rank of the best free spot on the floor
+     * @param freeSpots free spots of the requested type on the floor
+     */
+    record FloorCandidate(int floor, long headRank, int freeSpots) {}
+}
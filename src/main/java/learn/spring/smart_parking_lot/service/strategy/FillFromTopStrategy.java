@@ -0,0 +1,21 @@
+package learn.spring.smart_parking_lot.service.strategy;
+
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Highest floor first, keeping the lower floors and the entry ramp free for late arrivals.
+ */
+@Component
+public class FillFromTopStrategy implements AllocationStrategy {
+
+    @Override
+    public String getName() {
+        return "fill-from-top";
+    }
+
+    @Override
+    public long rank(SpotEntry spot) {
+        return -spot.floor();
+    }
+}
@@ -0,0 +1,24 @@
+package learn.spring.smart_parking_lot.service.strategy;
+
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lowest floor first, then lowest spot number - the lot's original behaviour.
+ */
+@Component
+public class FirstFitStrategy implements AllocationStrategy {
+
+    public static final String NAME = "first-fit";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public long rank(SpotEntry spot) {
+        // Spots on one floor tie and fall back to spot-number order
+        return spot.floor();
+    }
+}
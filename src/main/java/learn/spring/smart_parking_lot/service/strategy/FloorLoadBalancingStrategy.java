@@ -0,0 +1,30 @@
+package learn.spring.smart_parking_lot.service.strategy;
+
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Spreads entries across floors by sending each one to the floor with the most free spots of
+ * the requested type. Within a floor, spots are taken in spot-number order.
+ */
+@Component
+public class FloorLoadBalancingStrategy implements AllocationStrategy {
+
+    @Override
+    public String getName() {
+        return "load-balancing";
+    }
+
+    @Override
+    public long rank(SpotEntry spot) {
+        return 0;
+    }
+
+    @Override
+    public Comparator<FloorCandidate> floorPreference() {
+        return Comparator.comparingInt(FloorCandidate::freeSpots).reversed()
+            .thenComparingInt(FloorCandidate::floor);
+    }
+}
@@ -0,0 +1,38 @@
+package learn.spring.smart_parking_lot.service.strategy;
+
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shortest walk to the exit, which sits at position 1 of the exit floor. Moving one floor is
+ * weighted as a number of positions, so a spot near the ramp one floor up can beat a spot at
+ * the far end of the exit floor.
+ */
+@Component
+public class NearestToExitStrategy implements AllocationStrategy {
+
+    // Rank for spots without a position: behind every positioned spot on the same floor
+    private static final long UNKNOWN_POSITION = 1_000_000L;
+
+    private final int exitFloor;
+    private final int floorCost;
+
+    public NearestToExitStrategy(@Value("${parking.allocation.nearest-to-exit.exit-floor:1}") int exitFloor,
+                                 @Value("${parking.allocation.nearest-to-exit.floor-cost:20}") int floorCost) {
+        this.exitFloor = exitFloor;
+        this.floorCost = floorCost;
+    }
+
+    @Override
+    public String getName() {
+        return "nearest-to-exit";
+    }
+
+    @Override
+    public long rank(SpotEntry spot) {
+        long floorDistance = (long) Math.abs(spot.floor() - exitFloor) * floorCost;
+        long walk = spot.position() != null ? spot.position() - 1 : UNKNOWN_POSITION;
+        return floorDistance + walk;
+    }
+}
@@ -0,0 +1,82 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex;
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import learn.spring.smart_parking_lot.service.strategy.AllocationStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FillFromTopStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FirstFitStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FloorLoadBalancingStrategy;
+import learn.spring.smart_parking_lot.service.strategy.NearestToExitStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-allocation latency of each allocation strategy against a half-full lot.
+ * Each operation claims a spot and hands it back, so occupancy stays constant.
+ *
+ * Run with: mvn test-compile, then execute main() with the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllocationStrategyBenchmark {
+
+    @Param({"first-fit", "load-balancing", "nearest-to-exit", "fill-from-top"})
+    private String strategy;
+
+    @Param({"10", "50"})
+    private int floors;
+
+    @Param({"500"})
+    private int spotsPerFloor;
+
+    private SpotAvailabilityIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new SpotAvailabilityIndex(null, strategyNamed(strategy));
+        long id = 1;
+        for (int floor = 1; floor <= floors; floor++) {
+            for (int position = 1; position <= spotsPerFloor; position++) {
+                index.add(new SpotEntry(id++, String.format("%d-C-%04d", floor, position), floor,
+                    ParkingSpotType.COMPACT, position));
+            }
+        }
+        int occupied = floors * spotsPerFloor / 2;
+        for (int i = 0; i < occupied; i++) {
+            index.claimFirst(ParkingSpotType.COMPACT, Set.of());
+        }
+    }
+
+    @Benchmark
+    public SpotEntry allocateAndRelease() {
+        SpotEntry entry = index.claimFirst(ParkingSpotType.COMPACT, Set.of()).orElseThrow();
+        index.add(entry);
+        return entry;
+    }
+
+    private static AllocationStrategy strategyNamed(String name) {
+        return switch (name) {
+            case "first-fit" -> new FirstFitStrategy();
+            case "load-balancing" -> new FloorLoadBalancingStrategy();
+            case "nearest-to-exit" -> new NearestToExitStrategy(1, 20);
+            case "fill-from-top" -> new FillFromTopStrategy();
+            default -> throw new IllegalArgumentException("Unknown allocation strategy: " + name);
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AllocationStrategyBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.SmartParkingLotApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Base for benchmarks that run against the whole application. The application is started once per
+ * trial with the test profile, no SQL or INFO logging and the subclass's database, then prepare() sets
+ * up the data; it is closed after the trial. Subclasses carry their own @State and JMH settings.
+ *
+ * Run a benchmark with: mvn test-compile, then execute its main() with the test classpath.
+ */
+public abstract class ApplicationBenchmark {
+
+    protected ConfigurableApplicationContext context;
+
+    protected abstract String datasourceUrl();
+
+    /**
+     * Whether to serve HTTP on a random port, read back with {@link #localPort()}.
+     */
+    protected boolean webServer() {
+        return false;
+    }
+
+    protected void prepare() throws Exception {
+    }
+
+    protected void cleanUp() throws Exception {
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(SmartParkingLotApplication.class)
+            .profiles("test")
+            .run(
+                webServer() ? "--server.port=0" : "--spring.main.web-application-type=none",
+                "--spring.datasource.url=" + datasourceUrl(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.learn.spring.smart_parking_lot=WARN");
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws Exception {
+        try {
+            context.close();
+        } finally {
+            cleanUp();
+        }
+    }
+
+    protected <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    protected TransactionTemplate newTransactionTemplate() {
+        return new TransactionTemplate(getBean(PlatformTransactionManager.class));
+    }
+
+    protected String localPort() {
+        return context.getEnvironment().getProperty("local.server.port");
+    }
+
+    protected static void run(Class<?> benchmark) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(benchmark.getSimpleName())
+            .build()).run();
+    }
+}
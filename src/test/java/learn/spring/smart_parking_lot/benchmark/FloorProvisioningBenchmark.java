@@ -0,0 +1,53 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.service.FloorManagementService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provisioning one floor of 100k spots through addFloor. Each call is rolled back, so every
+ * invocation inserts into the same table.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FloorProvisioningBenchmark extends ApplicationBenchmark {
+
+    private static final int FLOOR = 101;
+
+    @Param({"100000"})
+    private int spots;
+
+    private FloorManagementService floorManagementService;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    protected String datasourceUrl() {
+        return "jdbc:h2:mem:floor_provisioning_benchmark";
+    }
+
+    @Override
+    protected void prepare() {
+        floorManagementService = getBean(FloorManagementService.class);
+        transactionTemplate = newTransactionTemplate();
+    }
+
+    @Benchmark
+    public void addFloor() {
+        transactionTemplate.executeWithoutResult(status -> {
+            int perType = spots / 10;
+            floorManagementService.addFloor(FLOOR, perType, spots - 2 * perType, perType);
+            status.setRollbackOnly();
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(FloorProvisioningBenchmark.class);
+    }
+}
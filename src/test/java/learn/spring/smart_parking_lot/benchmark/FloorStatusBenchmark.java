@@ -0,0 +1,116 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.dto.FloorStatus;
+import learn.spring.smart_parking_lot.model.Floor;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.service.FloorManagementService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Floor status for a large lot: the aggregate query against loading every spot entity and
+ * looking up each floor separately, as getAllFloorsStatus used to. A third of the spots are
+ * occupied and every tenth floor is under maintenance.
+ * Add "-prof gc" to the JMH arguments to compare allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FloorStatusBenchmark extends ApplicationBenchmark {
+
+    private static final int FIRST_FLOOR = 101;
+
+    @Param({"50"})
+    private int floors;
+
+    @Param({"500"})
+    private int spotsPerFloor;
+
+    private FloorManagementService floorManagementService;
+    private ParkingSpotRepository parkingSpotRepository;
+    private FloorRepository floorRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    protected String datasourceUrl() {
+        return "jdbc:h2:mem:floor_status_benchmark";
+    }
+
+    @Override
+    protected void prepare() {
+        floorManagementService = getBean(FloorManagementService.class);
+        parkingSpotRepository = getBean(ParkingSpotRepository.class);
+        floorRepository = getBean(FloorRepository.class);
+        transactionTemplate = newTransactionTemplate();
+
+        int perType = spotsPerFloor / 3;
+        for (int floor = FIRST_FLOOR; floor < FIRST_FLOOR + floors; floor++) {
+            floorManagementService.addFloor(floor, perType, spotsPerFloor - 2 * perType, perType);
+            if ((floor - FIRST_FLOOR) % 10 == 9) {
+                floorManagementService.setFloorMaintenanceMode(floor, true, "Benchmark");
+            }
+        }
+        List<Long> spotIds = parkingSpotRepository.findAll().stream().map(ParkingSpot::getId).toList();
+        // Nothing loaded in this transaction, so the claims do not each flush thousands of entities
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < spotIds.size(); i += 3) {
+                parkingSpotRepository.claimIfAvailable(spotIds.get(i));
+            }
+        });
+    }
+
+    @Benchmark
+    public List<FloorStatus> aggregateQuery() {
+        return floorManagementService.getAllFloorsStatus();
+    }
+
+    @Benchmark
+    public List<FloorStatus> entityScan() {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, List<ParkingSpot>> spotsByFloor = parkingSpotRepository.findAll()
+                .stream()
+                .collect(Collectors.groupingBy(ParkingSpot::getFloor));
+            List<FloorStatus> statuses = new ArrayList<>();
+            spotsByFloor.forEach((floorNumber, spots) -> statuses.add(entityScanStatus(floorNumber, spots)));
+            statuses.sort((f1, f2) -> Integer.compare(f1.getFloorNumber(), f2.getFloorNumber()));
+            return statuses;
+        });
+    }
+
+    // The per-floor work getAllFloorsStatus used to do: a Floor lookup and counting in Java
+    private FloorStatus entityScanStatus(int floorNumber, List<ParkingSpot> spots) {
+        FloorStatus status = new FloorStatus();
+        status.setFloorNumber(floorNumber);
+        status.setTotalSpots(spots.size());
+        Optional<Floor> floor = floorRepository.findByFloorNumber(floorNumber);
+        status.setUnderMaintenance(floor.map(Floor::getUnderMaintenance).orElse(false));
+        status.setMaintenanceReason(floor.map(Floor::getMaintenanceReason).orElse(null));
+        int available = status.isUnderMaintenance() ? 0 : (int) spots.stream().filter(ParkingSpot::getIsAvailable).count();
+        status.setAvailableSpots(available);
+        status.setOccupiedSpots(spots.size() - available);
+        Map<ParkingSpotType, Long> byType = spots.stream()
+            .collect(Collectors.groupingBy(ParkingSpot::getSpotType, Collectors.counting()));
+        status.setMotorcycleSpots(byType.getOrDefault(ParkingSpotType.MOTORCYCLE, 0L).intValue());
+        status.setCompactSpots(byType.getOrDefault(ParkingSpotType.COMPACT, 0L).intValue());
+        status.setLargeSpots(byType.getOrDefault(ParkingSpotType.LARGE, 0L).intValue());
+        return status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(FloorStatusBenchmark.class);
+    }
+}
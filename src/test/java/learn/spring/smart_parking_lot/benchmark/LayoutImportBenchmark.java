@@ -0,0 +1,84 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.service.LayoutService;
+import learn.spring.smart_parking_lot.service.LayoutService.LayoutFormat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing a 500k-spot CSV layout, 50 floors of 10k spots, through LayoutService. Each import is
+ * rolled back, so every invocation inserts into the same table. Spots go to a file database so the
+ * table does not crowd the heap.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx512m")
+@State(Scope.Benchmark)
+public class LayoutImportBenchmark extends ApplicationBenchmark {
+
+    private static final int FIRST_FLOOR = 101;
+    private static final int SPOTS_PER_FLOOR = 10_000;
+
+    @Param({"500000"})
+    private int spots;
+
+    private LayoutService layoutService;
+    private TransactionTemplate transactionTemplate;
+    private Path layoutFile;
+
+    @Override
+    protected String datasourceUrl() {
+        return "jdbc:h2:file:./target/h2/layout_import_benchmark";
+    }
+
+    @Override
+    protected void prepare() throws IOException {
+        layoutFile = Path.of("target", "layout-" + spots + ".csv");
+        Files.createDirectories(layoutFile.getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(layoutFile)) {
+            writer.write("floor,spot_number,spot_type,position\n");
+            for (int i = 0; i < spots; i++) {
+                int floor = FIRST_FLOOR + i / SPOTS_PER_FLOOR;
+                int position = i % SPOTS_PER_FLOOR + 1;
+                String spotType = position % 10 == 0 ? "LARGE" : position % 10 < 3 ? "MOTORCYCLE" : "COMPACT";
+                writer.write(floor + "," + floor + "-" + position + "," + spotType + "," + position + "\n");
+            }
+        }
+
+        layoutService = getBean(LayoutService.class);
+        transactionTemplate = newTransactionTemplate();
+    }
+
+    @Override
+    protected void cleanUp() throws IOException {
+        Files.deleteIfExists(layoutFile);
+    }
+
+    @Benchmark
+    public long importCsv() {
+        return transactionTemplate.execute(status -> {
+            try (InputStream in = Files.newInputStream(layoutFile)) {
+                long imported = layoutService.importLayout(LayoutFormat.CSV, in).spots();
+                status.setRollbackOnly();
+                return imported;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(LayoutImportBenchmark.class);
+    }
+}
@@ -0,0 +1,83 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.service.FloorManagementService;
+import learn.spring.smart_parking_lot.service.LotRegistry;
+import learn.spring.smart_parking_lot.service.ParkingService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Park and exit round trips from eight gates, all in one lot or spread over 200 lots served by one
+ * application. Per-lot latency with 200 lots should match the single-lot figure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiLotBenchmark extends ApplicationBenchmark {
+
+    @Param({"1", "200"})
+    private int lots;
+
+    private ParkingService parkingService;
+
+    @State(Scope.Thread)
+    public static class Gate {
+        private String lotId;
+        private String licensePlate;
+
+        @Setup
+        public void setUp(MultiLotBenchmark benchmark, ThreadParams threads) {
+            lotId = benchmark.lotId(threads.getThreadIndex() % benchmark.lots);
+            licensePlate = "GATE-" + threads.getThreadIndex();
+        }
+    }
+
+    @Override
+    protected String datasourceUrl() {
+        return "jdbc:h2:mem:multi_lot_benchmark";
+    }
+
+    @Override
+    protected void prepare() {
+        parkingService = getBean(ParkingService.class);
+        LotRegistry lotRegistry = getBean(LotRegistry.class);
+        FloorManagementService floorManagementService = getBean(FloorManagementService.class);
+        for (int i = 0; i < lots; i++) {
+            String lotId = lotId(i);
+            if (!lotRegistry.isOpen(lotId)) {
+                lotRegistry.createLot(lotId, "Benchmark lot " + i);
+            }
+            LotContext.run(lotId, () -> floorManagementService.addFloor(10, 20, 200, 20));
+        }
+    }
+
+    @Benchmark
+    public boolean parkAndExit(Gate gate) {
+        String previous = LotContext.enter(gate.lotId);
+        try {
+            parkingService.parkVehicle(new VehicleEntryRequest(gate.licensePlate, VehicleType.CAR, "Benchmark"));
+            return parkingService.exitVehicle(new VehicleExitRequest(gate.licensePlate)).isSuccess();
+        } finally {
+            LotContext.restore(previous);
+        }
+    }
+
+    private String lotId(int lot) {
+        return lot == 0 ? LotContext.DEFAULT_LOT : "lot-" + lot;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(MultiLotBenchmark.class);
+    }
+}
@@ -0,0 +1,84 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.service.FloorManagementService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status polling over HTTP against a running server: plain GETs against conditional GETs that
+ * carry the last ETag, as a dashboard polling an unchanged lot would send them. The lot has 20
+ * floors of 300 spots.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StatusETagBenchmark extends ApplicationBenchmark {
+
+    private static final int FIRST_FLOOR = 101;
+
+    @Param({"/api/parking/status", "/api/floors", "/api/floors/101"})
+    private String path;
+
+    private HttpClient client;
+    private HttpRequest plainRequest;
+    private HttpRequest conditionalRequest;
+
+    @Override
+    protected boolean webServer() {
+        return true;
+    }
+
+    @Override
+    protected String datasourceUrl() {
+        return "jdbc:h2:mem:status_etag_benchmark";
+    }
+
+    @Override
+    protected void prepare() throws IOException, InterruptedException {
+        FloorManagementService floorManagementService = getBean(FloorManagementService.class);
+        for (int floor = FIRST_FLOOR; floor < FIRST_FLOOR + 20; floor++) {
+            floorManagementService.addFloor(floor, 100, 100, 100);
+        }
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        plainRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + localPort() + path)).build();
+        String etag = client.send(plainRequest, HttpResponse.BodyHandlers.discarding())
+            .headers()
+            .firstValue("ETag")
+            .orElseThrow();
+        conditionalRequest = HttpRequest.newBuilder(plainRequest.uri()).header("If-None-Match", etag).build();
+    }
+
+    @Benchmark
+    public int plainGet() throws IOException, InterruptedException {
+        return send(plainRequest, 200);
+    }
+
+    @Benchmark
+    public int conditionalGet() throws IOException, InterruptedException {
+        return send(conditionalRequest, 304);
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(StatusETagBenchmark.class);
+    }
+}
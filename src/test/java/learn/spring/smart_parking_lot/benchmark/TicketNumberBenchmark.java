@@ -0,0 +1,48 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import learn.spring.smart_parking_lot.service.TicketNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a ticket number: the generator against the previous timestamp-plus-UUID scheme,
+ * with four threads issuing at once as concurrent gates would.
+ *
+ * Run with: mvn test-compile, then execute main() with the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TicketNumberBenchmark {
+
+    private final TicketNumberGenerator generator = new TicketNumberGenerator(0);
+
+    @Benchmark
+    public String generator() {
+        return generator.nextTicketNumber();
+    }
+
+    @Benchmark
+    public String timestampAndUuid() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "PKT-" + timestamp + "-" + uuid;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TicketNumberBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package learn.spring.smart_parking_lot.benchmark;
+
+import jakarta.persistence.EntityManager;
+import learn.spring.smart_parking_lot.dto.TicketPage;
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+import learn.spring.smart_parking_lot.model.Vehicle;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.VehicleRepository;
+import learn.spring.smart_parking_lot.service.TicketSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 50-ticket page of a 5M-ticket table at increasing depth: keyset pagination through
+ * TicketSearchService against the same query paged with OFFSET. The table lives in a file
+ * database so it does not crowd the heap; filling it takes a few minutes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketSearchBenchmark extends ApplicationBenchmark {
+
+    private static final int TICKETS = 5_000_000;
+    private static final int PAGE_SIZE = 50;
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final LocalDateTime FIRST_ENTRY = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"0", "1000000", "4999000"})
+    private int depth;
+
+    private TicketSearchService ticketSearchService;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private TicketSearchRequest request;
+
+    @Override
+    protected String datasourceUrl() {
+        // H2 would otherwise hand back the previous result for a repeated query on an unchanged table
+        return "jdbc:h2:file:./target/h2/ticket_search_benchmark;OPTIMIZE_REUSE_RESULTS=FALSE";
+    }
+
+    @Override
+    protected void prepare() {
+        ticketSearchService = getBean(TicketSearchService.class);
+        entityManager = getBean(EntityManager.class);
+        transactionTemplate = newTransactionTemplate();
+
+        Vehicle vehicle = getBean(VehicleRepository.class).save(new Vehicle("BENCH-1", VehicleType.CAR, "Benchmark"));
+        Long spotId = getBean(ParkingSpotRepository.class).findAll().get(0).getId();
+        // One ticket a second
+        getBean(JdbcTemplate.class).update(
+            "INSERT INTO parking_tickets (id, lot_id, ticket_number, vehicle_id, parking_spot_id, entry_time, status) " +
+            "SELECT X + ?, 'default', 'BENCH-' || X, ?, ?, DATEADD(SECOND, X, CAST(? AS TIMESTAMP)), 'PAID' " +
+            "FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))",
+            FIRST_ID, vehicle.getId(), spotId, FIRST_ENTRY, TICKETS - 1);
+
+        request = new TicketSearchRequest();
+        request.setFrom(FIRST_ENTRY);
+        request.setLimit(PAGE_SIZE);
+        if (depth > 0) {
+            // The cursor a client would hold after reading the first depth tickets
+            String position = FIRST_ENTRY.plusSeconds(depth - 1) + "|" + (FIRST_ID + depth - 1);
+            request.setCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Benchmark
+    public TicketPage keyset() {
+        return ticketSearchService.searchTickets(request);
+    }
+
+    @Benchmark
+    public List<TicketSummary> offset() {
+        return transactionTemplate.execute(status -> entityManager.createQuery(
+                "SELECT new learn.spring.smart_parking_lot.dto.TicketSummary(pt.id, pt.ticketNumber, v.licensePlate, " +
+                "v.vehicleType, s.spotNumber, s.floor, pt.entryTime, pt.exitTime, pt.status, pt.fee, pt.paymentTime) " +
+                "FROM ParkingTicket pt JOIN pt.vehicle v JOIN pt.parkingSpot s WHERE pt.entryTime >= :from " +
+                "ORDER BY pt.lotId, pt.entryTime, pt.id", TicketSummary.class)
+            .setParameter("from", FIRST_ENTRY)
+            .setFirstResult(depth)
+            .setMaxResults(PAGE_SIZE + 1)
+            .getResultList());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(TicketSearchBenchmark.class);
+    }
+}
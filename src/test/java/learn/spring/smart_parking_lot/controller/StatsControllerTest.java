@@ -0,0 +1,55 @@
+package learn.spring.smart_parking_lot.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * A stay through the entry and exit endpoints shows up in the dwell-time percentiles, and every
+ * request, failed ones included, in the latency percentiles.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stats_db")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+public class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testExitsAndRequestsShowUpInStats() throws Exception {
+        mockMvc.perform(post("/api/parking/entry")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"licensePlate\":\"STATS-1\",\"vehicleType\":\"CAR\",\"ownerName\":\"Stats\"}"))
+            .andExpect(jsonPath("$.success").value(true));
+        mockMvc.perform(post("/api/parking/exit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"licensePlate\":\"STATS-1\"}"))
+            .andExpect(jsonPath("$.success").value(true));
+        mockMvc.perform(post("/api/parking/exit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"licensePlate\":\"STATS-1\"}"))
+            .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(get("/api/stats/dwell"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.vehicleType == 'CAR' && @.floorNumber == null)].count").value(1))
+            .andExpect(jsonPath("$[?(@.vehicleType == 'CAR' && @.floorNumber == 1)].p99Minutes").value(0))
+            .andExpect(jsonPath("$[?(@.vehicleType == 'BUS' && @.floorNumber == null)].count").value(0));
+        mockMvc.perform(get("/api/stats/latency"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.request == 'ENTRY')].count").value(1))
+            .andExpect(jsonPath("$[?(@.request == 'EXIT')].count").value(2))
+            .andExpect(jsonPath("$[?(@.request == 'ENTRY_BATCH')].count").value(0));
+    }
+}
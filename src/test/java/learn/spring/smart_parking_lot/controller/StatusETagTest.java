@@ -0,0 +1,88 @@
+package learn.spring.smart_parking_lot.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.service.FloorManagementService;
+import learn.spring.smart_parking_lot.service.ParkingService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The status and floor endpoints answer a matching If-None-Match with 304 and no query, and hand
+ * out a new ETag once a vehicle parks or a floor goes into maintenance.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:status_etag_db")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+public class StatusETagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testUnchangedLotAnswersNotModifiedWithoutQueries() throws Exception {
+        for (String path : new String[] {"/api/parking/status", "/api/floors", "/api/floors/1"}) {
+            String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+            assertEquals(0, statistics.getPrepareStatementCount(), path);
+        }
+    }
+
+    @Test
+    public void testTagChangesWithOccupancyAndMaintenance() throws Exception {
+        String initial = etag("/api/floors");
+
+        assertTrue(parkingService.parkVehicle(new VehicleEntryRequest("ETAG-1", VehicleType.CAR, "ETag")).isSuccess());
+        String afterEntry = etag("/api/floors");
+        assertNotEquals(initial, afterEntry);
+        mockMvc.perform(get("/api/parking/status").header(HttpHeaders.IF_NONE_MATCH, initial))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, afterEntry));
+
+        floorManagementService.setFloorMaintenanceMode(3, true, "Repainting");
+        String afterMaintenance = etag("/api/floors");
+        assertNotEquals(afterEntry, afterMaintenance);
+        mockMvc.perform(get("/api/floors/3").header(HttpHeaders.IF_NONE_MATCH, afterEntry))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.underMaintenance").value(true));
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
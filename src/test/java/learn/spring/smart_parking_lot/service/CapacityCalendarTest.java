@@ -0,0 +1,49 @@
+package learn.spring.smart_parking_lot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CapacityCalendarTest {
+
+    @Test
+    public void testMatchesSlotBySlotCounts() {
+        int slots = 96 * 9;
+        CapacityCalendar calendar = new CapacityCalendar(slots);
+        int[] expected = new int[slots];
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2_000; i++) {
+            int from = random.nextInt(slots);
+            int to = from + 1 + random.nextInt(Math.min(48, slots - from));
+            int delta = random.nextInt(4) == 0 ? -1 : 1;
+            calendar.add(from, to, delta);
+            for (int slot = from; slot < to; slot++) {
+                expected[slot] += delta;
+            }
+
+            int queryFrom = random.nextInt(slots);
+            int queryTo = queryFrom + 1 + random.nextInt(slots - queryFrom);
+            int peak = Integer.MIN_VALUE;
+            for (int slot = queryFrom; slot < queryTo; slot++) {
+                peak = Math.max(peak, expected[slot]);
+            }
+            assertEquals(peak, calendar.max(queryFrom, queryTo));
+            assertEquals(expected[queryFrom], calendar.at(queryFrom));
+        }
+    }
+
+    @Test
+    public void testAddIfBelowStopsAtCapacity() {
+        CapacityCalendar calendar = new CapacityCalendar(96);
+        calendar.add(40, 44, 1);
+
+        assertTrue(calendar.addIfBelow(36, 48, 2));
+        assertFalse(calendar.addIfBelow(43, 50, 2));
+        // Outside the busy slots there is still room
+        assertTrue(calendar.addIfBelow(44, 50, 2));
+        assertEquals(2, calendar.max(0, 96));
+    }
+}
@@ -0,0 +1,73 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the statements an exit costs: one query loading the ticket with its vehicle and spots,
+ * then one update of the ticket and one batched update of its spots.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ExitStatementCountTest {
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void testCarExitRunsThreeStatements() {
+        assertExitStatements("STMT-CAR", VehicleType.CAR, 1);
+    }
+
+    @Test
+    public void testBusExitFreesItsWholeRunInOneBatch() {
+        assertExitStatements("STMT-BUS", VehicleType.BUS, 4);
+    }
+
+    private void assertExitStatements(String licensePlate, VehicleType vehicleType, int spotCount) {
+        ParkingResponse parked = parkingService.parkVehicle(new VehicleEntryRequest(licensePlate, vehicleType, "Statement Count"));
+        assertTrue(parked.isSuccess(), parked.getMessage());
+        // Start the exit from an empty persistence context, as a fresh request would
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        ParkingResponse exited = parkingService.exitVehicle(new VehicleExitRequest(licensePlate));
+        entityManager.flush();
+
+        assertTrue(exited.isSuccess(), exited.getMessage());
+        assertEquals(spotCount, exited.getSpotNumbers().size());
+        assertEquals(0, statistics.getEntityFetchCount() + statistics.getCollectionFetchCount(), "lazy loads");
+        assertEquals(spotCount + 1, statistics.getEntityUpdateCount(), "updated entities");
+        assertEquals(3, statistics.getPrepareStatementCount(), "prepared statements");
+    }
+}
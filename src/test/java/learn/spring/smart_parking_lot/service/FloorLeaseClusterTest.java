@@ -0,0 +1,150 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.SmartParkingLotApplication;
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application instances in cluster mode against one H2 database in server mode.
+ */
+public class FloorLeaseClusterTest {
+
+    private Server h2Server;
+    private String databaseUrl;
+
+    @BeforeEach
+    public void startDatabase() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        h2Server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        databaseUrl = "jdbc:h2:tcp://localhost:" + port + "/mem:cluster_db;DB_CLOSE_DELAY=-1";
+    }
+
+    @AfterEach
+    public void stopDatabase() {
+        h2Server.stop();
+    }
+
+    @Test
+    public void testInstancesSplitFloorsAndTakeOverFromADeadInstance() throws Exception {
+        try (ConfigurableApplicationContext gateA = startInstance("gate-a", 1, "create")) {
+            FloorLeaseManager leasesA = gateA.getBean(FloorLeaseManager.class);
+            awaitUntil(() -> leasesA.getOwnedFloors().equals(Set.of(1, 2, 3)));
+
+            try (ConfigurableApplicationContext gateB = startInstance("gate-b", 2, "update")) {
+                FloorLeaseManager leasesB = gateB.getBean(FloorLeaseManager.class);
+                awaitUntil(() -> {
+                    Set<Integer> all = new HashSet<>(leasesA.getOwnedFloors());
+                    all.addAll(leasesB.getOwnedFloors());
+                    return !leasesB.getOwnedFloors().isEmpty() && all.equals(Set.of(1, 2, 3))
+                        && leasesA.getOwnedFloors().size() + leasesB.getOwnedFloors().size() == 3;
+                });
+
+                // Both gates admit cars at once, each from its own floors only
+                Set<String> allocated = new HashSet<>();
+                for (ParkingResponse response : parkConcurrently(gateA, gateB)) {
+                    assertTrue(response.isSuccess(), response.getMessage());
+                    assertTrue(allocated.add(response.getSpotNumber()), "Spot " + response.getSpotNumber() + " was allocated twice");
+                }
+                List<ParkingResponse> fromA = park(gateA, "A-EXTRA", 1);
+                assertTrue(leasesA.getOwnedFloors().contains(floorOf(fromA.get(0))));
+                List<ParkingResponse> fromB = park(gateB, "B-EXTRA", 1);
+                assertTrue(leasesB.getOwnedFloors().contains(floorOf(fromB.get(0))));
+
+                // Gate B's index lacks gate A's vehicles, so it answers from the database, with the same plate matching
+                ParkingService parkingB = gateB.getBean(ParkingService.class);
+                assertFalse(parkingB.parkVehicle(new VehicleEntryRequest("a-extra-0", VehicleType.CAR, "Cluster Test")).isSuccess());
+                ParkingResponse exitedOnB = parkingB.exitVehicle(new VehicleExitRequest(" a-extra-0"));
+                assertTrue(exitedOnB.isSuccess(), exitedOnB.getMessage());
+                assertEquals(fromA.get(0).getTicketNumber(), exitedOnB.getTicketNumber());
+
+                // Gate B stops renewing as if it had crashed; its leases run out and gate A takes over
+                Set<Integer> floorsOfB = leasesB.getOwnedFloors();
+                gateB.getBean(ThreadPoolTaskScheduler.class).shutdown();
+                awaitUntil(() -> leasesA.getOwnedFloors().equals(Set.of(1, 2, 3)));
+                assertTrue(leasesA.getOwnedFloors().containsAll(floorsOfB));
+            }
+        }
+    }
+
+    private List<ParkingResponse> parkConcurrently(ConfigurableApplicationContext gateA,
+                                                   ConfigurableApplicationContext gateB) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<ParkingResponse>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String suffix = String.valueOf(i);
+                futures.add(executor.submit(() -> park(gateA, "A" + suffix, 2)));
+                futures.add(executor.submit(() -> park(gateB, "B" + suffix, 2)));
+            }
+            List<ParkingResponse> responses = new ArrayList<>();
+            for (Future<List<ParkingResponse>> future : futures) {
+                responses.addAll(future.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ParkingResponse> park(ConfigurableApplicationContext gate, String platePrefix, int count) {
+        ParkingService parkingService = gate.getBean(ParkingService.class);
+        List<ParkingResponse> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            responses.add(parkingService.parkVehicle(new VehicleEntryRequest(platePrefix + "-" + i, VehicleType.CAR, "Cluster Test")));
+        }
+        return responses;
+    }
+
+    private int floorOf(ParkingResponse response) {
+        assertTrue(response.isSuccess(), response.getMessage());
+        return Integer.parseInt(response.getSpotNumber().split("-")[0]);
+    }
+
+    private ConfigurableApplicationContext startInstance(String instanceId, int nodeId, String ddlAuto) {
+        // Command-line arguments, so they win over application.properties
+        return new SpringApplicationBuilder(SmartParkingLotApplication.class)
+            .profiles("test")
+            .run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=" + databaseUrl,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.jpa.show-sql=false",
+                "--parking.cluster.enabled=true",
+                "--parking.cluster.instance-id=" + instanceId,
+                "--parking.ticket.node-id=" + nodeId,
+                "--parking.cluster.lease-seconds=2",
+                "--parking.cluster.renew-interval-ms=200");
+    }
+
+    private void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 20_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for floor leases to settle");
+            Thread.sleep(100);
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package learn.spring.smart_parking_lot.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import learn.spring.smart_parking_lot.dto.FloorStatus;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
 import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -20,6 +30,21 @@ public class FloorManagementServiceTest {
     @Autowired
     private FloorManagementService floorManagementService;
 
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private SpotProvisioner spotProvisioner;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     public void testAddNewFloor() {
         // Add a new floor
@@ -47,6 +72,34 @@ public class FloorManagementServiceTest {
         assertTrue(newSpot.getSpotNumber().startsWith("1-C-"));
     }
 
+    @Test
+    public void testAddParkingSpotTakesNextNumberWithoutLoadingTheFloor() {
+        floorManagementService.addFloor(41, 100, 300, 100);
+        entityManager.flush();
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        ParkingSpot first = floorManagementService.addParkingSpot(41, ParkingSpotType.COMPACT);
+        entityManager.flush();
+        // Update and read of the position and number counters, and the spot insert; no spot is loaded
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 5, statistics.getPrepareStatementCount() + " statements");
+        assertEquals("41-C-501", first.getSpotNumber());
+        assertEquals(501, first.getPosition());
+        
+        // Removing a spot leaves a gap that is not refilled
+        floorManagementService.removeParkingSpot(first.getSpotNumber());
+        ParkingSpot compact = floorManagementService.addParkingSpot(41, ParkingSpotType.COMPACT);
+        assertEquals("41-C-502", compact.getSpotNumber());
+        assertEquals(502, compact.getPosition());
+        
+        // Numbers run per type, positions along the whole floor
+        ParkingSpot large = floorManagementService.addParkingSpot(41, ParkingSpotType.LARGE);
+        assertEquals("41-L-501", large.getSpotNumber());
+        assertEquals(503, large.getPosition());
+    }
+
     @Test
     public void testGetAllFloorsStatus() {
         List<FloorStatus> floors = floorManagementService.getAllFloorsStatus();
@@ -60,6 +113,66 @@ public class FloorManagementServiceTest {
         }
     }
 
+    @Test
+    public void testAllFloorsStatusMatchesSpotsInOneQuery() {
+        floorManagementService.addFloor(30, 2, 3, 4);
+        floorManagementService.setFloorMaintenanceMode(30, true, "Resurfacing");
+        floorManagementService.addFloor(31, 0, 6, 0);
+        parkingService.parkVehicle(new VehicleEntryRequest("STATUS-1", VehicleType.CAR, "Floor Status"));
+        entityManager.flush();
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        List<FloorStatus> floors = floorManagementService.getAllFloorsStatus();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        
+        for (FloorStatus status : floors) {
+            List<ParkingSpot> spots = parkingSpotRepository.findByFloor(status.getFloorNumber());
+            long available = status.isUnderMaintenance() ? 0 : spots.stream().filter(ParkingSpot::getIsAvailable).count();
+            assertEquals(spots.size(), status.getTotalSpots());
+            assertEquals(available, status.getAvailableSpots());
+            assertEquals(spots.size() - available, status.getOccupiedSpots());
+            assertEquals(spots.stream().filter(spot -> spot.getSpotType() == ParkingSpotType.COMPACT).count(), status.getCompactSpots());
+        }
+        FloorStatus floor30 = floors.stream().filter(status -> status.getFloorNumber() == 30).findFirst().orElseThrow();
+        assertTrue(floor30.isUnderMaintenance());
+        assertEquals("Resurfacing", floor30.getMaintenanceReason());
+        assertEquals(0, floor30.getAvailableLargeSpots());
+        assertEquals(4, floor30.getLargeSpots());
+    }
+
+    @Test
+    public void testAddFloorInsertsSpotsInBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        floorManagementService.addFloor(40, 100, 300, 100);
+        entityManager.flush();
+
+        // 500 spots in batches of 50 take ten inserts and ten sequence calls, not a thousand round-trips
+        assertEquals(500, statistics.getEntityInsertCount() - 1);
+        assertTrue(statistics.getPrepareStatementCount() <= 30,
+            statistics.getPrepareStatementCount() + " statements");
+
+        List<ParkingSpot> spots = parkingSpotRepository.findByFloor(40);
+        assertEquals(500, spots.size());
+        assertEquals(500, spots.stream().map(ParkingSpot::getId).distinct().count());
+        ParkingSpot first = spots.stream().filter(spot -> spot.getPosition() == 1).findFirst().orElseThrow();
+        assertEquals("40-M-01", first.getSpotNumber());
+        ParkingSpot last = spots.stream().filter(spot -> spot.getPosition() == 500).findFirst().orElseThrow();
+        assertEquals("40-L-500", last.getSpotNumber());
+        assertEquals(ParkingSpotType.LARGE, last.getSpotType());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testSpotBatchesAreOnlyInsertedInsideATransaction() {
+        assertThrows(IllegalTransactionStateException.class, () ->
+            spotProvisioner.insertBatch(List.of(new ParkingSpot("99-C-01", 99, ParkingSpotType.COMPACT, 1))));
+        assertTrue(parkingSpotRepository.findByFloor(99).isEmpty());
+    }
+
     @Test
     public void testAddDuplicateFloor() {
         // Try to add floor 1 which already exists
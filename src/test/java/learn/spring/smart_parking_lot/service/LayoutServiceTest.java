@@ -0,0 +1,135 @@
+package learn.spring.smart_parking_lot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.service.LayoutService.ImportSummary;
+import learn.spring.smart_parking_lot.service.LayoutService.LayoutFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class LayoutServiceTest {
+
+    @Autowired
+    private LayoutService layoutService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private FloorRepository floorRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testCsvImportAddsFloorsAndSpots() throws IOException {
+        StringBuilder csv = new StringBuilder("floor,spot_number,spot_type,position\n");
+        // More than one insert batch, on two floors
+        for (int position = 1; position <= 120; position++) {
+            csv.append(50).append(",A-").append(position).append(",COMPACT,").append(position).append('\n');
+        }
+        csv.append("51,\"B,1\",large,4\n");
+
+        ImportSummary summary = layoutService.importLayout(LayoutFormat.CSV, stream(csv.toString()));
+
+        assertEquals(2, summary.floors());
+        assertEquals(121, summary.spots());
+        assertTrue(floorRepository.existsByFloorNumber(50));
+        assertEquals(120, parkingSpotRepository.findByFloor(50).size());
+        ParkingSpot quoted = parkingSpotRepository.findBySpotNumber("B,1").orElseThrow();
+        assertEquals(ParkingSpotType.LARGE, quoted.getSpotType());
+        assertEquals(4, quoted.getPosition());
+        // Spots added afterwards are numbered after the imported positions
+        assertEquals("51-L-05", floorManagementService.addParkingSpot(51, ParkingSpotType.LARGE).getSpotNumber());
+    }
+
+    @Test
+    public void testJsonExportReadsBackThroughImport() throws IOException {
+        layoutService.importLayout(LayoutFormat.JSON, stream("""
+            [{"floor": 60, "spotNumber": "60-M-01", "spotType": "MOTORCYCLE", "position": 1},
+             {"floor": 60, "spotNumber": "60-C-02", "spotType": "COMPACT", "position": 2}]
+            """));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = layoutService.exportLayout(LayoutFormat.JSON, out);
+        JsonNode spots = objectMapper.readTree(out.toByteArray());
+        assertEquals(parkingSpotRepository.count(), count);
+        assertEquals(count, spots.size());
+        List<JsonNode> floor60 = spots.findParents("floor").stream()
+            .filter(spot -> spot.get("floor").asInt() == 60)
+            .toList();
+        assertEquals(2, floor60.size());
+        assertEquals("60-C-02", floor60.get(1).get("spotNumber").asText());
+        assertEquals("COMPACT", floor60.get(1).get("spotType").asText());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        layoutService.exportLayout(LayoutFormat.CSV, csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("floor,spot_number,spot_type,position", lines[0]);
+        assertEquals(count + 1, lines.length);
+    }
+
+    @Test
+    public void testInvalidRecordsAreReported() {
+        ParkingLotException badType = assertThrows(ParkingLotException.class, () ->
+            layoutService.importLayout(LayoutFormat.CSV, stream("floor,spot_number,spot_type,position\n" +
+                "70,X-1,COMPACT,1\n70,X-2,HELIPAD,2\n")));
+        assertTrue(badType.getMessage().startsWith("Layout record 2:"), badType.getMessage());
+
+        ParkingLotException existingFloor = assertThrows(ParkingLotException.class, () ->
+            layoutService.importLayout(LayoutFormat.JSON, stream(
+                "[{\"floor\": 1, \"spotNumber\": \"1-X-99\", \"spotType\": \"LARGE\", \"position\": 99}]")));
+        assertTrue(existingFloor.getMessage().contains("floor 1 already exists"), existingFloor.getMessage());
+
+        ParkingLotException sharedPosition = assertThrows(ParkingLotException.class, () ->
+            layoutService.importLayout(LayoutFormat.CSV, stream("floor,spot_number,spot_type,position\n" +
+                "71,Y-1,LARGE,1\n71,Y-2,LARGE,2\n71,Y-3,COMPACT,2\n")));
+        assertEquals("Layout record 3: position 2 on floor 71 is already taken", sharedPosition.getMessage());
+
+        ParkingLotException otherFloorsNumber = assertThrows(ParkingLotException.class, () ->
+            layoutService.importLayout(LayoutFormat.CSV, stream("floor,spot_number,spot_type,position\n" +
+                "72,73-C-01,COMPACT,1\n")));
+        assertTrue(otherFloorsNumber.getMessage().contains("belongs to floor 73"), otherFloorsNumber.getMessage());
+    }
+
+    @Test
+    public void testAddedSpotsAreNumberedAfterImportedNumbers() throws IOException {
+        layoutService.importLayout(LayoutFormat.CSV, stream("floor,spot_number,spot_type,position\n" +
+            "52,52-C-01,COMPACT,1\n52,52-C-60,COMPACT,50\n52,gate,LARGE,2\n"));
+
+        // Positions follow the highest imported position, numbers the highest imported number of their type
+        ParkingSpot compact = floorManagementService.addParkingSpot(52, ParkingSpotType.COMPACT);
+        assertEquals("52-C-61", compact.getSpotNumber());
+        assertEquals(51, compact.getPosition());
+        ParkingSpot large = floorManagementService.addParkingSpot(52, ParkingSpotType.LARGE);
+        assertEquals("52-L-51", large.getSpotNumber());
+        assertEquals(52, large.getPosition());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package learn.spring.smart_parking_lot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogHistogramTest {
+
+    @Test
+    public void testBucketsCoverEveryValueOnce() {
+        long previousHighest = -1;
+        for (int index = 0; index <= LogHistogram.bucketIndex(1_000_000); index++) {
+            long highest = LogHistogram.highestValueInBucket(index);
+            assertTrue(highest > previousHighest);
+            assertEquals(index, LogHistogram.bucketIndex(previousHighest + 1));
+            assertEquals(index, LogHistogram.bucketIndex(highest));
+            previousHighest = highest;
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinThreePercent() {
+        LogHistogram histogram = new LogHistogram(10_000_000);
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Skewed like stay lengths: mostly short, a long tail
+            values[i] = (long) Math.exp(random.nextDouble() * 14);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LogHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getTotalCount());
+        for (double percentile : new double[] {50, 90, 99, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = snapshot.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact * 1.032, percentile + ": " + reported + " vs " + exact);
+        }
+    }
+
+    @Test
+    public void testSmallValuesAreExactAndLargeOnesClamped() {
+        LogHistogram histogram = new LogHistogram(1000);
+        histogram.record(0);
+        histogram.record(7);
+        histogram.record(1_000_000);
+        LogHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getValueAtPercentile(10));
+        assertEquals(7, snapshot.getValueAtPercentile(50));
+        assertTrue(snapshot.getMaxValue() >= 1000 && snapshot.getMaxValue() < 1100);
+        assertEquals(0, new LogHistogram(1000).snapshot().getValueAtPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() {
+        LogHistogram histogram = new LogHistogram(1_000_000);
+        CompletableFuture<?>[] writers = IntStream.range(0, 8)
+            .mapToObj(writer -> CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i % 5_000);
+                }
+            }))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(writers).join();
+
+        LogHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.getTotalCount());
+        LogHistogram.Snapshot merged = snapshot.merge(snapshot);
+        assertEquals(800_000, merged.getTotalCount());
+        assertEquals(snapshot.getValueAtPercentile(90), merged.getValueAtPercentile(90));
+    }
+}
@@ -0,0 +1,170 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import learn.spring.smart_parking_lot.dto.ParkingLotStatus;
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import learn.spring.smart_parking_lot.service.LayoutService.LayoutFormat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The lot status counters: entries, exits, added floors and imported layouts move them without a
+ * query, and the reconciler repairs drift without undoing a change that is still committing.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:occupancy_counters_db")
+@ActiveProfiles("test")
+@DirtiesContext
+public class OccupancyCountersTest {
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private OccupancyCounters occupancyCounters;
+
+    @Autowired
+    private LayoutService layoutService;
+
+    @Autowired
+    private ParkingSpotAllocationService allocationService;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private ParkingTicketRepository ticketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testStatusFollowsCommittedChangesWithoutQueries() {
+        floorManagementService.addFloor(20, 2, 4, 6);
+        ParkingSpot extra = floorManagementService.addParkingSpot(20, ParkingSpotType.COMPACT);
+        assertParked("COUNT-CAR", VehicleType.CAR);
+        assertParked("COUNT-BUS", VehicleType.BUS);
+        parkingService.parkVehicles(List.of(
+            new VehicleEntryRequest("COUNT-BIKE", VehicleType.MOTORCYCLE, "Counters"),
+            new VehicleEntryRequest("COUNT-VAN", VehicleType.CAR, "Counters")));
+        assertTrue(parkingService.exitVehicle(new VehicleExitRequest("COUNT-CAR")).isSuccess());
+        floorManagementService.removeParkingSpot(extra.getSpotNumber());
+        // Rolled back: must not move the counters
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            parkingService.parkVehicle(new VehicleEntryRequest("COUNT-GONE", VehicleType.CAR, "Counters"));
+            status.setRollbackOnly();
+        });
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        ParkingLotStatus status = parkingService.getParkingLotStatus();
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        assertEquals(parkingSpotRepository.count(), status.getTotalSpots());
+        assertEquals(parkingSpotRepository.countAvailableSpots(), status.getAvailableSpots());
+        assertEquals(status.getTotalSpots() - status.getAvailableSpots(), status.getOccupiedSpots());
+        assertEquals(ticketRepository.countActiveTickets(), status.getActiveTickets());
+        assertEquals(parkingSpotRepository.countAvailableSpotsByType(ParkingSpotType.MOTORCYCLE), status.getMotorcycleSpots());
+        assertEquals(parkingSpotRepository.countAvailableSpotsByType(ParkingSpotType.COMPACT), status.getCompactSpots());
+        assertEquals(parkingSpotRepository.countAvailableSpotsByType(ParkingSpotType.LARGE), status.getLargeSpots());
+        assertEquals(0, occupancyCounters.reconcile(true));
+    }
+
+    @Test
+    public void testReconcilerCorrectsDrift() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ParkingSpot spot = parkingSpotRepository
+                .findAvailableSpotsByTypeOrderByFloorAndSpotNumber(ParkingSpotType.LARGE).get(0);
+            // Occupied behind the application's back
+            parkingSpotRepository.claimIfAvailable(spot.getId());
+        });
+        long availableBefore = occupancyCounters.getAvailableSpots(ParkingSpotType.LARGE);
+        long versionBefore = occupancyCounters.getVersion();
+
+        assertEquals(1, occupancyCounters.reconcile(true));
+        assertEquals(availableBefore - 1, occupancyCounters.getAvailableSpots(ParkingSpotType.LARGE));
+        assertNotEquals(versionBefore, occupancyCounters.getVersion());
+        assertEquals(0, occupancyCounters.reconcile(true));
+    }
+
+    @Test
+    public void testReconcileSkipsACommitNotYetApplied() {
+        long availableBefore = occupancyCounters.getAvailableSpots();
+        AtomicInteger drifted = new AtomicInteger(-1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Registered ahead of the counters' own callback, so it runs after the database commit
+            // and before the entry is applied to the counters
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drifted.set(CompletableFuture.supplyAsync(() -> occupancyCounters.reconcile(true)).join());
+                }
+            });
+            assertParked("COUNT-RACE", VehicleType.CAR);
+        });
+
+        assertEquals(0, drifted.get());
+        assertEquals(availableBefore - 1, occupancyCounters.getAvailableSpots());
+        assertEquals(parkingSpotRepository.countAvailableSpots(), occupancyCounters.getAvailableSpots());
+        assertEquals(ticketRepository.countActiveTickets(), occupancyCounters.getActiveTickets());
+        assertEquals(0, occupancyCounters.reconcile(true));
+    }
+
+    @Test
+    public void testImportedLayoutIsCountedAndAllocatableOnCommit() throws IOException {
+        StringBuilder csv = new StringBuilder("floor,spot_number,spot_type,position\n");
+        // More than one insert batch
+        for (int position = 1; position <= 120; position++) {
+            csv.append(30).append(",30-").append(position).append(',')
+                .append(position % 2 == 0 ? "COMPACT" : "LARGE").append(',').append(position).append('\n');
+        }
+        layoutService.importLayout(LayoutFormat.CSV, new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(60, occupancyCounters.getTotalSpots(ParkingSpotType.COMPACT, 30));
+        assertEquals(60, occupancyCounters.getAvailableSpots(ParkingSpotType.LARGE, 30));
+        assertEquals(parkingSpotRepository.count(), occupancyCounters.getTotalSpots());
+        assertEquals(0, occupancyCounters.reconcile(true));
+        // The imported floor's spots reached the index once the import committed
+        ParkingSpot allocated = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return allocationService.allocateSpotWithFloorPreference(VehicleType.CAR, 30);
+        });
+        assertEquals(30, allocated.getFloor());
+    }
+
+    private void assertParked(String licensePlate, VehicleType vehicleType) {
+        ParkingResponse response = parkingService.parkVehicle(new VehicleEntryRequest(licensePlate, vehicleType, "Counters"));
+        assertTrue(response.isSuccess(), response.getMessage());
+    }
+}
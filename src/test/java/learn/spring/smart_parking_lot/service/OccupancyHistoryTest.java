@@ -0,0 +1,130 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.OccupancySample;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-floor occupancy samples, taken by hand at fixed times, fold into minute and hour buckets, wrap
+ * after a day and are read back after a restart.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:occupancy_history_db")
+@ActiveProfiles("test")
+@DirtiesContext
+public class OccupancyHistoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Autowired
+    private OccupancyCounters occupancyCounters;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testSamplesFoldIntoMinuteAndHourBuckets() {
+        OccupancyHistory history = new OccupancyHistory(occupancyCounters, "");
+        int first = occupiedCompactOnFloor1();
+        history.sample(millis(BASE));
+        park("HISTORY-1");
+        park("HISTORY-2");
+        int second = occupiedCompactOnFloor1();
+        history.sample(millis(BASE.plusSeconds(10)));
+        park("HISTORY-3");
+        int third = occupiedCompactOnFloor1();
+        history.sample(millis(BASE.plusSeconds(70)));
+        assertTrue(third > first);
+
+        List<OccupancySample> minutes = compactOnFloor1(history.getHistory(BASE, BASE.plusHours(1), OccupancyHistory.Resolution.MINUTE));
+        assertEquals(2, minutes.size());
+        assertEquals(BASE, minutes.get(0).getTime());
+        assertEquals((first + second) / 2.0, minutes.get(0).getAverageOccupied(), 1e-9);
+        assertEquals(second, minutes.get(0).getMaxOccupied());
+        assertEquals(BASE.plusMinutes(1), minutes.get(1).getTime());
+        assertEquals(third, minutes.get(1).getAverageOccupied(), 1e-9);
+        assertEquals(occupancyCounters.getTotalSpots(ParkingSpotType.COMPACT, 1), minutes.get(1).getTotalSpots());
+
+        List<OccupancySample> hours = compactOnFloor1(history.getHistory(BASE, BASE.plusHours(1), OccupancyHistory.Resolution.HOUR));
+        assertEquals(1, hours.size());
+        assertEquals((first + second + third) / 3.0, hours.get(0).getAverageOccupied(), 1e-9);
+        assertEquals(third, hours.get(0).getMaxOccupied());
+
+        assertTrue(history.getHistory(BASE.plusMinutes(2), BASE.plusHours(1), OccupancyHistory.Resolution.MINUTE).isEmpty());
+    }
+
+    @Test
+    public void testMinuteBucketsWrapAfterADay() {
+        OccupancyHistory history = new OccupancyHistory(occupancyCounters, "");
+        history.sample(millis(BASE));
+        // Same minute slot a day later: the minute tier forgets the first day, the hour tier keeps it
+        history.sample(millis(BASE.plusDays(1)));
+
+        List<OccupancySample> minutes = compactOnFloor1(history.getHistory(BASE, BASE.plusDays(2), OccupancyHistory.Resolution.MINUTE));
+        assertEquals(List.of(BASE.plusDays(1)), minutes.stream().map(OccupancySample::getTime).toList());
+        List<OccupancySample> hours = compactOnFloor1(history.getHistory(BASE, BASE.plusDays(2), OccupancyHistory.Resolution.HOUR));
+        assertEquals(List.of(BASE, BASE.plusDays(1)), hours.stream().map(OccupancySample::getTime).toList());
+    }
+
+    @Test
+    public void testHistorySurvivesRestart() {
+        Path file = tempDir.resolve("history").resolve("occupancy-history.bin");
+        OccupancyHistory history = new OccupancyHistory(occupancyCounters, file.toString());
+        history.sample(millis(BASE));
+        history.sample(millis(BASE.plusMinutes(5)));
+        history.persist();
+        assertTrue(Files.exists(file));
+
+        OccupancyHistory restarted = new OccupancyHistory(occupancyCounters, file.toString());
+        restarted.load();
+        for (OccupancyHistory.Resolution resolution : OccupancyHistory.Resolution.values()) {
+            List<OccupancySample> before = history.getHistory(BASE, BASE.plusHours(2), resolution);
+            List<OccupancySample> after = restarted.getHistory(BASE, BASE.plusHours(2), resolution);
+            assertFalse(after.isEmpty());
+            assertEquals(before.size(), after.size());
+            for (int i = 0; i < before.size(); i++) {
+                assertEquals(before.get(i).getTime(), after.get(i).getTime());
+                assertEquals(before.get(i).getFloorNumber(), after.get(i).getFloorNumber());
+                assertEquals(before.get(i).getSpotType(), after.get(i).getSpotType());
+                assertEquals(before.get(i).getAverageOccupied(), after.get(i).getAverageOccupied());
+                assertEquals(before.get(i).getMaxOccupied(), after.get(i).getMaxOccupied());
+            }
+        }
+    }
+
+    private int occupiedCompactOnFloor1() {
+        return (int) (occupancyCounters.getTotalSpots(ParkingSpotType.COMPACT, 1)
+            - occupancyCounters.getAvailableSpots(ParkingSpotType.COMPACT, 1));
+    }
+
+    private void park(String licensePlate) {
+        assertTrue(parkingService.parkVehicle(new VehicleEntryRequest(licensePlate, VehicleType.CAR, "History")).isSuccess());
+    }
+
+    private static List<OccupancySample> compactOnFloor1(List<OccupancySample> samples) {
+        return samples.stream()
+            .filter(sample -> sample.getFloorNumber() == 1 && sample.getSpotType() == ParkingSpotType.COMPACT)
+            .toList();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
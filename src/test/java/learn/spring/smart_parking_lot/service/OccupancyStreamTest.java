@@ -0,0 +1,140 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Windows are published by hand: the scheduled window is longer than the test.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:occupancy_stream_db",
+    "parking.stream.coalesce-ms=600000",
+    "parking.stream.max-lag-ms=100"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+public class OccupancyStreamTest {
+
+    @Autowired
+    private OccupancyStream occupancyStream;
+
+    @Autowired
+    private OccupancyCounters occupancyCounters;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Test
+    public void testBurstOfEntriesBecomesOneUpdate() throws Exception {
+        floorManagementService.addFloor(40, 0, 30, 0);
+        // Anything changed before subscribing is not this test's concern
+        occupancyStream.publishChanges();
+        RecordingEmitter subscriber = new RecordingEmitter();
+        occupancyStream.subscribe(subscriber);
+        awaitUntil(() -> subscriber.events.size() == 1);
+        assertTrue(subscriber.events.get(0).startsWith("event:snapshot"));
+        assertTrue(subscriber.events.get(0).contains("\"floorNumber\":40"));
+
+        for (int i = 0; i < 20; i++) {
+            ParkingResponse response = parkingService.parkVehicle(new VehicleEntryRequest("STREAM-" + i, VehicleType.CAR, "Stream"));
+            assertTrue(response.isSuccess(), response.getMessage());
+        }
+        occupancyStream.publishChanges();
+        occupancyStream.publishChanges();
+
+        awaitUntil(() -> subscriber.events.size() == 2);
+        Thread.sleep(100);
+        assertEquals(2, subscriber.events.size());
+        String update = subscriber.events.get(1);
+        assertTrue(update.startsWith("event:availability"));
+        long available = occupancyCounters.getAvailableSpots(ParkingSpotType.COMPACT, 1);
+        assertTrue(update.contains("{\"floorNumber\":1,\"spotType\":\"COMPACT\",\"availableSpots\":" + available + ","), update);
+    }
+
+    @Test
+    public void testSubscriberThatFallsBehindIsDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter stuck = new BlockingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter();
+        int before = occupancyStream.getSubscriberCount();
+        occupancyStream.subscribe(stuck);
+        occupancyStream.subscribe(healthy);
+        try {
+            awaitUntil(() -> stuck.sendStarted && healthy.events.size() == 1);
+            Thread.sleep(200);
+
+            assertTrue(parkingService.parkVehicle(new VehicleEntryRequest("STREAM-SLOW", VehicleType.MOTORCYCLE, "Stream")).isSuccess());
+            occupancyStream.publishChanges();
+
+            awaitUntil(() -> healthy.events.size() == 2);
+            assertEquals(before + 1, occupancyStream.getSubscriberCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the stream");
+            Thread.sleep(10);
+        }
+    }
+
+    private static String text(SseEmitter.SseEventBuilder builder) {
+        return builder.build().stream()
+            .map(ResponseBodyEmitter.DataWithMediaType::getData)
+            .map(Object::toString)
+            .collect(Collectors.joining());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(text(builder));
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private volatile boolean sendStarted;
+
+        BlockingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted = true;
+            try {
+                // A client that stopped reading: the write never completes
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.config.LotContext;
+import learn.spring.smart_parking_lot.dto.ParkingLotStatus;
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.FloorRepository;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two lots in one application: each sees only its own floors, spots and tickets, and keeps its own
+ * in-memory state, and lot ids cannot be reused.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:parking_lot_isolation_db")
+@ActiveProfiles("test")
+@DirtiesContext
+public class ParkingLotIsolationTest {
+
+    @Autowired
+    private LotRegistry lotRegistry;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private OccupancyCounters occupancyCounters;
+
+    @Autowired
+    private FloorRepository floorRepository;
+
+    @Autowired
+    private ParkingTicketRepository ticketRepository;
+
+    @Test
+    public void testLotsKeepSeparateFloorsSpotsAndTickets() {
+        ParkingLotStatus defaultBefore = parkingService.getParkingLotStatus();
+        lotRegistry.createLot("north", "North garage");
+        assertTrue(lotRegistry.isOpen("north"));
+
+        // Floor 1 and its spot numbers already exist in the default lot
+        LotContext.run("north", () -> floorManagementService.addFloor(1, 1, 2, 1));
+        AtomicReference<ParkingResponse> parked = new AtomicReference<>();
+        LotContext.run("north", () -> parked.set(
+            parkingService.parkVehicle(new VehicleEntryRequest("LOT-CAR", VehicleType.CAR, "North"))));
+        assertTrue(parked.get().isSuccess(), parked.get().getMessage());
+
+        LotContext.run("north", () -> {
+            ParkingLotStatus north = parkingService.getParkingLotStatus();
+            assertEquals(4, north.getTotalSpots());
+            assertEquals(3, north.getAvailableSpots());
+            assertEquals(1, north.getActiveTickets());
+            assertEquals(1, floorRepository.count());
+            assertTrue(ticketRepository.findByTicketNumber(parked.get().getTicketNumber()).isPresent());
+        });
+
+        // The default lot sees none of it
+        ParkingLotStatus defaultAfter = parkingService.getParkingLotStatus();
+        assertEquals(defaultBefore.getTotalSpots(), defaultAfter.getTotalSpots());
+        assertEquals(defaultBefore.getAvailableSpots(), defaultAfter.getAvailableSpots());
+        assertEquals(defaultBefore.getActiveTickets(), occupancyCounters.getActiveTickets());
+        assertTrue(ticketRepository.findByTicketNumber(parked.get().getTicketNumber()).isEmpty());
+        assertFalse(parkingService.exitVehicle(new VehicleExitRequest("LOT-CAR")).isSuccess());
+
+        LotContext.run("north", () ->
+            assertTrue(parkingService.exitVehicle(new VehicleExitRequest("LOT-CAR")).isSuccess()));
+        LotContext.run("north", () -> assertEquals(4, occupancyCounters.getAvailableSpots()));
+    }
+
+    @Test
+    public void testLotIdsAreUnique() {
+        lotRegistry.createLot("south", "South garage");
+        assertThrows(ParkingLotException.class, () -> lotRegistry.createLot("south", "Another south garage"));
+        assertTrue(lotRegistry.isOpen(LotContext.DEFAULT_LOT));
+        assertFalse(lotRegistry.isOpen("west"));
+    }
+}
@@ -3,13 +3,18 @@ package learn.spring.smart_parking_lot.service;
 import learn.spring.smart_parking_lot.dto.ParkingResponse;
 import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
 import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.TicketStatus;
 import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import learn.spring.smart_parking_lot.repository.VehicleRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -20,6 +25,12 @@ public class ParkingServiceTest {
     @Autowired
     private ParkingService parkingService;
 
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ParkingTicketRepository ticketRepository;
+
     @Test
     public void testParkAndExitVehicle() {
         // Test parking a car
@@ -51,4 +62,108 @@ public class ParkingServiceTest {
         assertFalse(secondPark.isSuccess());
         assertTrue(secondPark.getMessage().contains("already parked"));
     }
+
+    @Test
+    public void testPlatesAreMatchedIgnoringCaseAndSurroundingSpaces() {
+        ParkingResponse parked = parkingService.parkVehicle(new VehicleEntryRequest("ka-01-1234", VehicleType.CAR, "Ravi"));
+        assertTrue(parked.isSuccess(), parked.getMessage());
+        
+        ParkingResponse again = parkingService.parkVehicle(new VehicleEntryRequest(" KA-01-1234 ", VehicleType.CAR, "Ravi"));
+        assertFalse(again.isSuccess());
+        assertTrue(again.getMessage().contains("already parked"));
+        
+        ParkingResponse exit = parkingService.exitVehicle(new VehicleExitRequest("KA-01-1234"));
+        assertTrue(exit.isSuccess(), exit.getMessage());
+        assertEquals(parked.getTicketNumber(), exit.getTicketNumber());
+        
+        // A second exit for the same vehicle finds no active ticket
+        assertFalse(parkingService.exitVehicle(new VehicleExitRequest("ka-01-1234")).isSuccess());
+    }
+
+    @Test
+    public void testPlateCaseIsTheSameVehicleInTheIndexAndTheDatabase() {
+        ParkingResponse parked = parkingService.parkVehicle(new VehicleEntryRequest("ABC123", VehicleType.CAR, "John Doe"));
+        assertTrue(parked.isSuccess(), parked.getMessage());
+        
+        // The database agrees with the index that abc123 is the vehicle already parked
+        assertFalse(parkingService.parkVehicle(new VehicleEntryRequest("abc123", VehicleType.CAR, "John Doe")).isSuccess());
+        assertFalse(parkingService.parkVehicles(List.of(new VehicleEntryRequest("abc123", VehicleType.CAR, "John Doe"))).get(0).isSuccess());
+        assertTrue(vehicleRepository.findByLicensePlate("ABC123").isPresent());
+        assertFalse(vehicleRepository.existsByLicensePlate("abc123"));
+        assertTrue(ticketRepository.findByLicensePlateAndStatus("ABC123", TicketStatus.ACTIVE).isPresent());
+        
+        ParkingResponse exit = parkingService.exitVehicles(List.of(new VehicleExitRequest("abc123"))).get(0);
+        assertTrue(exit.isSuccess(), exit.getMessage());
+        assertEquals(parked.getTicketNumber(), exit.getTicketNumber());
+        assertTrue(ticketRepository.findByLicensePlateAndStatus("ABC123", TicketStatus.ACTIVE).isEmpty());
+        assertEquals(1, vehicleRepository.findByLicensePlateIn(List.of("ABC123", "abc123")).size());
+    }
+
+    @Test
+    public void testBatchEntryAndExit() {
+        List<VehicleEntryRequest> entries = List.of(
+            new VehicleEntryRequest("BATCH-1", VehicleType.CAR, "Fan 1"),
+            new VehicleEntryRequest("BATCH-2", VehicleType.MOTORCYCLE, "Fan 2"),
+            new VehicleEntryRequest("BATCH-3", VehicleType.CAR, "Fan 3")
+        );
+        List<ParkingResponse> parkResponses = parkingService.parkVehicles(entries);
+        
+        assertEquals(3, parkResponses.size());
+        parkResponses.forEach(response -> assertTrue(response.isSuccess(), response.getMessage()));
+        assertEquals(3, parkResponses.stream().map(ParkingResponse::getSpotNumber).distinct().count());
+        
+        List<ParkingResponse> exitResponses = parkingService.exitVehicles(List.of(
+            new VehicleExitRequest("BATCH-1"),
+            new VehicleExitRequest("BATCH-2"),
+            new VehicleExitRequest("BATCH-3")
+        ));
+        
+        assertEquals(3, exitResponses.size());
+        for (int i = 0; i < exitResponses.size(); i++) {
+            assertTrue(exitResponses.get(i).isSuccess(), exitResponses.get(i).getMessage());
+            assertEquals(parkResponses.get(i).getTicketNumber(), exitResponses.get(i).getTicketNumber());
+            assertNotNull(exitResponses.get(i).getFee());
+        }
+    }
+    
+    @Test
+    public void testBatchFailedItemsDoNotAffectOthers() {
+        parkingService.parkVehicle(new VehicleEntryRequest("ALREADY-IN", VehicleType.CAR, "Early Bird"));
+        
+        List<ParkingResponse> responses = parkingService.parkVehicles(List.of(
+            new VehicleEntryRequest("ALREADY-IN", VehicleType.CAR, "Early Bird"),
+            new VehicleEntryRequest("DUP-1", VehicleType.CAR, "Twin"),
+            new VehicleEntryRequest("DUP-1", VehicleType.CAR, "Twin"),
+            new VehicleEntryRequest("NEW-1", VehicleType.BUS, "Driver")
+        ));
+        
+        assertFalse(responses.get(0).isSuccess());
+        assertTrue(responses.get(1).isSuccess());
+        assertFalse(responses.get(2).isSuccess());
+        assertTrue(responses.get(3).isSuccess());
+        
+        List<ParkingResponse> exits = parkingService.exitVehicles(List.of(
+            new VehicleExitRequest("NOT-PARKED"),
+            new VehicleExitRequest("DUP-1")
+        ));
+        assertFalse(exits.get(0).isSuccess());
+        assertTrue(exits.get(1).isSuccess());
+    }
+
+    @Test
+    public void testBusGetsAdjacentLargeSpots() {
+        ParkingResponse busPark = parkingService.parkVehicle(new VehicleEntryRequest("BUS-01", VehicleType.BUS, "Coach Co"));
+        
+        assertTrue(busPark.isSuccess(), busPark.getMessage());
+        assertEquals(List.of("3-L-16", "3-L-17", "3-L-18", "3-L-19"), busPark.getSpotNumbers());
+        assertEquals("3-L-16", busPark.getSpotNumber());
+        
+        // Only one large spot is left on floor 3, so a second bus does not fit
+        ParkingResponse secondBus = parkingService.parkVehicle(new VehicleEntryRequest("BUS-02", VehicleType.BUS, "Coach Co"));
+        assertFalse(secondBus.isSuccess());
+        
+        ParkingResponse busExit = parkingService.exitVehicle(new VehicleExitRequest("BUS-01"));
+        assertTrue(busExit.isSuccess(), busExit.getMessage());
+        assertEquals(busPark.getSpotNumbers(), busExit.getSpotNumbers());
+    }
 }
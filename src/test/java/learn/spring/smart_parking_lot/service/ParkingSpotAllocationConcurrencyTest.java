@@ -0,0 +1,206 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.dto.VehicleExitRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.ParkingTicketRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Entries racing each other, a stale free-spot index and a floor closing for maintenance: no spot
+ * is handed out twice, no vehicle is parked twice and no car is left on a closed floor.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:allocation_concurrency_db")
+@ActiveProfiles("test")
+@DirtiesContext
+public class ParkingSpotAllocationConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ParkingSpotAllocationConcurrencyTest.class);
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private ParkingSpotAllocationService allocationService;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private ParkingTicketRepository ticketRepository;
+
+    @Autowired
+    private MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testConcurrentEntriesNeverShareASpot() throws Exception {
+        // Enough compact spots for every round without any exits
+        floorManagementService.addFloor(10, 0, 200, 0);
+        long occupiedBefore = parkingSpotRepository.count() - parkingSpotRepository.countAvailableSpots();
+
+        Set<String> allocatedSpots = new HashSet<>();
+        int totalEntries = 0;
+        for (int concurrency : new int[] {8, 32, 128}) {
+            List<ParkingResponse> responses = parkConcurrently("R" + concurrency + "-", concurrency);
+            for (ParkingResponse response : responses) {
+                assertTrue(response.isSuccess(), response.getMessage());
+                assertTrue(allocatedSpots.add(response.getSpotNumber()),
+                    "Spot " + response.getSpotNumber() + " was allocated twice");
+            }
+            totalEntries += concurrency;
+        }
+
+        assertEquals(totalEntries, ticketRepository.findByStatus(TicketStatus.ACTIVE).size());
+        assertEquals(occupiedBefore + totalEntries,
+            parkingSpotRepository.count() - parkingSpotRepository.countAvailableSpots());
+    }
+
+    @Test
+    public void testConcurrentEntriesForOneVehicleParkItOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ParkingResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return parkingService.parkVehicle(new VehicleEntryRequest("SAME-PLATE", VehicleType.CAR, "Tailgater"));
+                }));
+            }
+            start.countDown();
+            int parked = 0;
+            for (Future<ParkingResponse> future : futures) {
+                if (future.get().isSuccess()) {
+                    parked++;
+                }
+            }
+            assertEquals(1, parked);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertTrue(parkingService.exitVehicle(new VehicleExitRequest("SAME-PLATE")).isSuccess());
+        assertFalse(parkingService.exitVehicle(new VehicleExitRequest("SAME-PLATE")).isSuccess());
+        // The freed spot goes back to first-fit and takes a second ticket
+        assertTrue(parkingService.parkVehicle(new VehicleEntryRequest("SAME-PLATE", VehicleType.CAR, "Tailgater")).isSuccess());
+    }
+
+    @Test
+    public void testStaleIndexEntryIsSkipped() {
+        ParkingSpot taken = new TransactionTemplate(transactionManager).execute(status -> {
+            ParkingSpot spot = parkingSpotRepository
+                .findAvailableSpotsByTypeOrderByFloorAndSpotNumber(ParkingSpotType.MOTORCYCLE).get(0);
+            // Simulate another gate occupying the spot behind this instance's back
+            parkingSpotRepository.claimIfAvailable(spot.getId());
+            return spot;
+        });
+
+        ParkingSpot allocated = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return allocationService.allocateSpot(VehicleType.MOTORCYCLE);
+        });
+
+        assertNotEquals(taken.getSpotNumber(), allocated.getSpotNumber());
+    }
+
+    @Test
+    public void testMaintenanceWaitsForAnEntryClaimingOnTheFloor() throws Exception {
+        floorManagementService.addFloor(20, 0, 2, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch claimed = new CountDownLatch(1);
+            CountDownLatch commit = new CountDownLatch(1);
+            Future<ParkingSpot> entry = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                ParkingSpot spot = allocationService.allocateSpotWithFloorPreference(VehicleType.CAR, 20);
+                claimed.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return spot;
+            }));
+            assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+            Future<?> maintenance = executor.submit(() ->
+                floorManagementService.setFloorMaintenanceMode(20, true, "Resurfacing"));
+            // The floor is closed to new entries while the maintenance check waits on the claim
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!maintenanceFloorSnapshot.current().contains(20)) {
+                assertTrue(System.nanoTime() < deadline, "Floor 20 never entered the maintenance snapshot");
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            commit.countDown();
+
+            assertEquals(20, entry.get().getFloor());
+            ExecutionException failure = assertThrows(ExecutionException.class, maintenance::get);
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertFalse(maintenanceFloorSnapshot.current().contains(20));
+            assertFalse(floorManagementService.getFloorStatus(20).isUnderMaintenance());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ParkingResponse> parkConcurrently(String platePrefix, int concurrency) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ParkingResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                VehicleEntryRequest request = new VehicleEntryRequest(platePrefix + i, VehicleType.CAR, "Load Test");
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return parkingService.parkVehicle(request);
+                }));
+            }
+
+            long startNanos = System.nanoTime();
+            start.countDown();
+            List<ParkingResponse> responses = new ArrayList<>();
+            for (Future<ParkingResponse> future : futures) {
+                responses.add(future.get());
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            log.info("Concurrent entries: {}, elapsed: {} ms, throughput: {} entries/s", concurrency,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), concurrency * 1_000_000_000L / Math.max(elapsedNanos, 1));
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ParkingSpotAllocationServiceTest {
+
+    @Autowired
+    private ParkingSpotAllocationService allocationService;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private SpotAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private MaintenanceFloorSnapshot maintenanceFloorSnapshot;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testAllocationMatchesQueryOrderAndIsRestoredOnRollback() {
+        ParkingSpot allocated = inRolledBackTransaction(() -> {
+            ParkingSpot expected = parkingSpotRepository
+                .findAvailableSpotsByTypeOrderByFloorAndSpotNumber(ParkingSpotType.COMPACT).get(0);
+
+            ParkingSpot spot = allocationService.allocateSpot(VehicleType.CAR);
+
+            assertEquals(expected.getSpotNumber(), spot.getSpotNumber());
+            assertFalse(availabilityIndex.contains(spot), "Allocated spot should leave the index");
+            return spot;
+        });
+
+        assertTrue(availabilityIndex.contains(allocated), "Rolled back allocation should return the spot to the index");
+    }
+
+    @Test
+    public void testFreedSpotIsNotOfferedBeforeCommit() {
+        ParkingSpot freed = inRolledBackTransaction(() -> {
+            ParkingSpot spot = allocationService.allocateSpot(VehicleType.MOTORCYCLE);
+            allocationService.freeSpot(spot);
+
+            assertFalse(availabilityIndex.contains(spot), "Freed spot should wait for commit");
+            return spot;
+        });
+
+        assertTrue(availabilityIndex.contains(freed));
+    }
+
+    @Test
+    public void testAddedSpotIsNotPublishedWhenRolledBack() {
+        ParkingSpot added = inRolledBackTransaction(() ->
+            floorManagementService.addParkingSpot(1, ParkingSpotType.LARGE));
+
+        assertFalse(availabilityIndex.contains(added));
+    }
+
+    @Test
+    public void testRemovedSpotIsWithdrawnUntilRollback() {
+        ParkingSpot spot = parkingSpotRepository.findBySpotNumber("2-C-09").orElseThrow();
+        assertTrue(availabilityIndex.contains(spot));
+
+        inRolledBackTransaction(() -> {
+            floorManagementService.removeParkingSpot(spot.getSpotNumber());
+            assertFalse(availabilityIndex.contains(spot));
+            return null;
+        });
+
+        assertTrue(availabilityIndex.contains(spot));
+    }
+
+    @Test
+    public void testMaintenanceSnapshotClosesFloorImmediatelyAndReopensOnRollback() {
+        inRolledBackTransaction(() -> {
+            floorManagementService.setFloorMaintenanceMode(2, true, "Resurfacing");
+            assertTrue(maintenanceFloorSnapshot.current().contains(2));
+            return null;
+        });
+
+        assertFalse(maintenanceFloorSnapshot.current().contains(2));
+    }
+
+    @Test
+    public void testMaintenanceSnapshotReopensFloorOnlyAfterCommit() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status ->
+            floorManagementService.setFloorMaintenanceMode(3, true, "Inspection"));
+        try {
+            inRolledBackTransaction(() -> {
+                floorManagementService.setFloorMaintenanceMode(3, false, null);
+                assertTrue(maintenanceFloorSnapshot.current().contains(3), "Floor should stay closed until commit");
+                return null;
+            });
+            assertTrue(maintenanceFloorSnapshot.current().contains(3));
+        } finally {
+            transactionTemplate.executeWithoutResult(status ->
+                floorManagementService.setFloorMaintenanceMode(3, false, null));
+        }
+
+        assertFalse(maintenanceFloorSnapshot.current().contains(3));
+    }
+
+    @Test
+    public void testBusIsOnlyAllocatedAsARun() {
+        long freeLarge = availabilityIndex.countFree(ParkingSpotType.LARGE);
+        
+        assertThrows(IllegalArgumentException.class, () -> allocationService.allocateSpot(VehicleType.BUS));
+        assertThrows(IllegalArgumentException.class, () -> allocationService.tryAllocateSpot(VehicleType.BUS));
+        assertThrows(IllegalArgumentException.class, () -> allocationService.allocateSpotWithFloorPreference(VehicleType.BUS, 3));
+        assertEquals(freeLarge, availabilityIndex.countFree(ParkingSpotType.LARGE), "A refused bus should claim nothing");
+        
+        inRolledBackTransaction(() -> {
+            assertEquals(VehicleType.BUS.getSpotsRequired(), allocationService.allocateSpots(VehicleType.BUS).size());
+            return null;
+        });
+    }
+
+    private <T> T inRolledBackTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return action.get();
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.exception.NoAvailableSpotException;
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.model.Reservation;
+import learn.spring.smart_parking_lot.model.ReservationStatus;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ReservationServiceTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private ParkingSpotAllocationService allocationService;
+
+    @Test
+    public void testAvailabilityDropsOnlyForOverlappingWindows() {
+        LocalDateTime tomorrow = LocalDate.now().plusDays(1).atStartOfDay();
+        long morning = reservationService.getAvailableCapacity(ParkingSpotType.COMPACT, tomorrow.plusHours(10), tomorrow.plusHours(12));
+        long afternoon = reservationService.getAvailableCapacity(ParkingSpotType.COMPACT, tomorrow.plusHours(13), tomorrow.plusHours(14));
+
+        Reservation reservation = reservationService.createReservation("RES-001", ParkingSpotType.COMPACT,
+            tomorrow.plusHours(10), tomorrow.plusHours(12));
+        assertEquals(ReservationStatus.CONFIRMED, reservation.getStatus());
+        assertTrue(reservation.getReservationNumber().matches("RSV-[0-9A-F]{16}"), reservation.getReservationNumber());
+
+        assertEquals(morning - 1, reservationService.getAvailableCapacity(ParkingSpotType.COMPACT, tomorrow.plusHours(11), tomorrow.plusHours(15)));
+        assertEquals(afternoon, reservationService.getAvailableCapacity(ParkingSpotType.COMPACT, tomorrow.plusHours(13), tomorrow.plusHours(14)));
+    }
+
+    @Test
+    public void testOverbookingIsRejected() {
+        LocalDateTime start = LocalDate.now().plusDays(2).atTime(9, 0);
+        LocalDateTime end = start.plusHours(3);
+        long capacity = reservationService.getAvailableCapacity(ParkingSpotType.LARGE, start, end);
+
+        for (int i = 0; i < capacity; i++) {
+            // Staggered windows that all overlap the middle of the range
+            reservationService.createReservation("LARGE-" + i, ParkingSpotType.LARGE,
+                start.plusMinutes(i % 2 == 0 ? 0 : 60), end.minusMinutes(i % 2 == 0 ? 60 : 0));
+        }
+
+        assertEquals(0, reservationService.getAvailableCapacity(ParkingSpotType.LARGE, start.plusMinutes(60), start.plusMinutes(120)));
+        assertThrows(NoAvailableSpotException.class, () ->
+            reservationService.createReservation("LARGE-X", ParkingSpotType.LARGE, start, end));
+    }
+
+    @Test
+    public void testReservedSpotsAreHeldBackFromWalkIns() {
+        LocalDateTime now = LocalDateTime.now();
+        long capacity = reservationService.getAvailableCapacity(ParkingSpotType.LARGE, now, now.plusHours(2));
+        for (int i = 0; i < capacity; i++) {
+            reservationService.createReservation("HOLD-" + i, ParkingSpotType.LARGE, now, now.plusHours(2));
+        }
+
+        // A walk-in bus finds every large spot held back
+        assertTrue(allocationService.tryAllocateSpots(VehicleType.BUS).isEmpty());
+
+        // The vehicle the spot was reserved for still gets one
+        ParkingResponse response = parkingService.parkVehicle(new VehicleEntryRequest("HOLD-0", VehicleType.CAR, "Reserved Driver"));
+        assertTrue(response.isSuccess(), response.getMessage());
+        assertTrue(response.getSpotNumber().contains("-L-"));
+        assertNotNull(response.getReservationNumber());
+        assertEquals(ReservationStatus.FULFILLED,
+            reservationService.getReservation(response.getReservationNumber()).getStatus());
+    }
+}
@@ -0,0 +1,154 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.model.ParkingSpotType;
+import learn.spring.smart_parking_lot.service.SpotAvailabilityIndex.SpotEntry;
+import learn.spring.smart_parking_lot.service.strategy.AllocationStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FillFromTopStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FirstFitStrategy;
+import learn.spring.smart_parking_lot.service.strategy.FloorLoadBalancingStrategy;
+import learn.spring.smart_parking_lot.service.strategy.NearestToExitStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpotAvailabilityIndexTest {
+
+    private SpotAvailabilityIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SpotAvailabilityIndex(null, new FirstFitStrategy());
+        index.add(new SpotEntry(1L, "1-C-02", 1, ParkingSpotType.COMPACT, null));
+        index.add(new SpotEntry(2L, "1-C-01", 1, ParkingSpotType.COMPACT, null));
+        index.add(new SpotEntry(3L, "2-C-01", 2, ParkingSpotType.COMPACT, null));
+    }
+
+    @Test
+    public void testClaimsInFloorThenSpotNumberOrder() {
+        assertEquals("1-C-01", index.claimFirst(ParkingSpotType.COMPACT, List.of()).orElseThrow().spotNumber());
+        assertEquals("1-C-02", index.claimFirst(ParkingSpotType.COMPACT, List.of()).orElseThrow().spotNumber());
+        assertEquals("2-C-01", index.claimFirst(ParkingSpotType.COMPACT, List.of()).orElseThrow().spotNumber());
+        assertTrue(index.claimFirst(ParkingSpotType.COMPACT, List.of()).isEmpty());
+    }
+
+    @Test
+    public void testExcludedFloorsAreSkipped() {
+        assertEquals(2, index.claimFirst(ParkingSpotType.COMPACT, List.of(1)).orElseThrow().floor());
+    }
+
+    @Test
+    public void testDifferentFloorsDoNotContend() throws Exception {
+        ReentrantLock floorOne = index.stripeLock(ParkingSpotType.COMPACT, 1);
+        floorOne.lock();
+        try {
+            Optional<SpotEntry> claimed = CompletableFuture
+                .supplyAsync(() -> index.claimFirstOnFloor(ParkingSpotType.COMPACT, 2))
+                .get(1, TimeUnit.SECONDS);
+            assertEquals("2-C-01", claimed.orElseThrow().spotNumber());
+        } finally {
+            floorOne.unlock();
+        }
+    }
+
+    @Test
+    public void testExhaustedStripeIsSkippedWithoutLocking() throws Exception {
+        index.claimFirstOnFloor(ParkingSpotType.COMPACT, 1);
+        index.claimFirstOnFloor(ParkingSpotType.COMPACT, 1);
+
+        ReentrantLock floorOne = index.stripeLock(ParkingSpotType.COMPACT, 1);
+        floorOne.lock();
+        try {
+            Optional<SpotEntry> claimed = CompletableFuture
+                .supplyAsync(() -> index.claimFirst(ParkingSpotType.COMPACT, List.of()))
+                .get(1, TimeUnit.SECONDS);
+            assertEquals(2, claimed.orElseThrow().floor());
+        } finally {
+            floorOne.unlock();
+        }
+    }
+
+    @Test
+    public void testRunsAreClaimedBestFitAndMergedOnRelease() {
+        // Floor 1: free large positions 1-2 and 5-8; floor 2: free large positions 1-3
+        for (int position : new int[] {1, 2, 5, 6, 7, 8}) {
+            index.add(largeSpot(1, position));
+        }
+        for (int position : new int[] {1, 2, 3}) {
+            index.add(largeSpot(2, position));
+        }
+
+        List<SpotEntry> run = index.claimRun(ParkingSpotType.LARGE, 2, List.of()).orElseThrow();
+        assertEquals(List.of(1, 2), run.stream().map(SpotEntry::position).toList());
+        assertEquals(1, run.get(0).floor());
+
+        List<SpotEntry> busRun = index.claimRun(ParkingSpotType.LARGE, 4, List.of()).orElseThrow();
+        assertEquals(List.of(5, 6, 7, 8), busRun.stream().map(SpotEntry::position).toList());
+        assertTrue(index.claimRun(ParkingSpotType.LARGE, 4, List.of()).isEmpty());
+
+        // A single claim splits the run it lands in
+        assertEquals(2, index.claimFirstOnFloor(ParkingSpotType.LARGE, 2).orElseThrow().floor());
+        assertTrue(index.claimRun(ParkingSpotType.LARGE, 3, List.of()).isEmpty());
+
+        // Releasing the bus run merges it back into one segment
+        busRun.forEach(index::add);
+        run.forEach(index::add);
+        List<SpotEntry> merged = index.claimRun(ParkingSpotType.LARGE, 4, List.of(2)).orElseThrow();
+        assertEquals(List.of(5, 6, 7, 8), merged.stream().map(SpotEntry::position).toList());
+    }
+
+    @Test
+    public void testFillFromTopStartsOnHighestFloor() {
+        SpotAvailabilityIndex topDown = indexWith(new FillFromTopStrategy());
+
+        assertEquals(3, topDown.claimFirst(ParkingSpotType.LARGE, List.of()).orElseThrow().floor());
+        assertEquals(2, topDown.claimFirst(ParkingSpotType.LARGE, List.of(3)).orElseThrow().floor());
+    }
+
+    @Test
+    public void testLoadBalancingPicksFloorWithMostFreeSpots() {
+        SpotAvailabilityIndex balanced = indexWith(new FloorLoadBalancingStrategy());
+
+        // Floor 2 has three free spots, floors 1 and 3 have two
+        assertEquals(2, balanced.claimFirst(ParkingSpotType.LARGE, List.of()).orElseThrow().floor());
+        // Now every floor has two; ties go to the lowest floor
+        assertEquals(1, balanced.claimFirst(ParkingSpotType.LARGE, List.of()).orElseThrow().floor());
+        assertEquals(2, balanced.claimFirst(ParkingSpotType.LARGE, List.of()).orElseThrow().floor());
+    }
+
+    @Test
+    public void testNearestToExitWeighsFloorsAgainstWalkingDistance() {
+        SpotAvailabilityIndex nearest = indexWith(new NearestToExitStrategy(1, 5));
+        nearest.add(largeSpot(1, 30));
+        nearest.claimFirstOnFloor(ParkingSpotType.LARGE, 1);
+        nearest.claimFirstOnFloor(ParkingSpotType.LARGE, 1);
+
+        // Floor 2 position 1 (cost 5) beats floor 1 position 30 (cost 29)
+        SpotEntry first = nearest.claimFirst(ParkingSpotType.LARGE, List.of()).orElseThrow();
+        assertEquals(2, first.floor());
+        assertEquals(1, first.position());
+    }
+
+    private SpotAvailabilityIndex indexWith(AllocationStrategy strategy) {
+        SpotAvailabilityIndex strategyIndex = new SpotAvailabilityIndex(null, strategy);
+        for (int position : new int[] {1, 2}) {
+            strategyIndex.add(largeSpot(1, position));
+            strategyIndex.add(largeSpot(3, position));
+        }
+        for (int position : new int[] {1, 2, 3}) {
+            strategyIndex.add(largeSpot(2, position));
+        }
+        return strategyIndex;
+    }
+
+    private SpotEntry largeSpot(int floor, int position) {
+        return new SpotEntry(floor * 100L + position, String.format("%d-L-%02d", floor, position), floor,
+            ParkingSpotType.LARGE, position);
+    }
+}
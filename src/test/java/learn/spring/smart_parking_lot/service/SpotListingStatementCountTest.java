@@ -0,0 +1,82 @@
+package learn.spring.smart_parking_lot.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import learn.spring.smart_parking_lot.dto.ParkingResponse;
+import learn.spring.smart_parking_lot.dto.VehicleEntryRequest;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loading spots must not look up their tickets one spot at a time, however many spots there are
+ * and however many of them are occupied.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class SpotListingStatementCountTest {
+
+    private static final int FLOORS = 10;
+    private static final int SPOTS_PER_FLOOR = 1_000;
+
+    @Autowired
+    private FloorManagementService floorManagementService;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void testLoadingTenThousandSpotsTakesOneStatement() {
+        for (int floor = 101; floor < 101 + FLOORS; floor++) {
+            floorManagementService.addFloor(floor, 0, SPOTS_PER_FLOOR, 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            ParkingResponse parked = parkingService.parkVehicle(new VehicleEntryRequest("LIST-" + i, VehicleType.CAR, "Listing"));
+            assertTrue(parked.isSuccess(), parked.getMessage());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ParkingSpot> spots = parkingSpotRepository.findAll();
+
+        assertTrue(spots.size() >= FLOORS * SPOTS_PER_FLOOR);
+        assertTrue(spots.stream().filter(spot -> !spot.getIsAvailable()).count() >= 20);
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        entityManager.clear();
+        statistics.clear();
+        assertEquals(SPOTS_PER_FLOOR, parkingSpotRepository.findByFloor(105).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,148 @@
+package learn.spring.smart_parking_lot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.model.Vehicle;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.VehicleRepository;
+import learn.spring.smart_parking_lot.service.TicketExportService.ExportFormat;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a file database with lazy query execution, so the table does not live on the test's heap
+ * and the driver reads from a cursor as a server database would. The row count can be raised with
+ * -Dticket.export.rows=10000000.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/h2/ticket_export_db;LAZY_QUERY_EXECUTION=TRUE")
+@ActiveProfiles("test")
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TicketExportTest {
+
+    private static final int ROWS = Integer.getInteger("ticket.export.rows", 500_000);
+    private static final LocalDateTime FIRST_ENTRY = LocalDateTime.of(2026, 1, 1, 0, 0);
+    // Far less than the rows would take if they were materialized
+    private static final long MAX_RETAINED_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private TicketExportService ticketExportService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    public void insertTickets() {
+        Vehicle vehicle = vehicleRepository.save(new Vehicle("EXPORT-1", VehicleType.CAR, "Finance, Inc."));
+        ParkingSpot spot = parkingSpotRepository.findAll().get(0);
+        // One ticket a second, exited after an hour; every tenth was lost
+        jdbcTemplate.update("INSERT INTO parking_tickets (id, lot_id, ticket_number, vehicle_id, parking_spot_id, entry_time, " +
+                "exit_time, status, fee, payment_time) " +
+                "SELECT X + 100000000, 'default', 'EXP-' || X, ?, ?, DATEADD(SECOND, X, CAST(? AS TIMESTAMP)), " +
+                "DATEADD(SECOND, X + 3600, CAST(? AS TIMESTAMP)), CASE WHEN MOD(X, 10) = 0 THEN 'LOST' ELSE 'PAID' END, " +
+                "5.00, DATEADD(SECOND, X + 3600, CAST(? AS TIMESTAMP)) FROM SYSTEM_RANGE(1, CAST(? AS BIGINT))",
+            vehicle.getId(), spot.getId(), FIRST_ENTRY, FIRST_ENTRY, FIRST_ENTRY, ROWS);
+    }
+
+    @Test
+    public void testCsvRowsMatchTheRange() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = ticketExportService.exportTickets(TicketStatus.PAID, FIRST_ENTRY.plusSeconds(9),
+            FIRST_ENTRY.plusSeconds(12), ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("ticket_number,license_plate,"));
+        ParkingSpot spot = parkingSpotRepository.findAll().get(0);
+        assertEquals("EXP-9,EXPORT-1,CAR," + spot.getSpotNumber() + "," + spot.getFloor()
+            + ",2026-01-01T00:00:09,2026-01-01T01:00:09,PAID,5.00,2026-01-01T01:00:09", lines[1]);
+        assertTrue(lines[2].startsWith("EXP-11,"));
+    }
+
+    @Test
+    public void testNdjsonHasOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ticketExportService.exportTickets(TicketStatus.LOST, FIRST_ENTRY, FIRST_ENTRY.plusSeconds(31),
+            ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("EXP-10", first.get("ticketNumber").asText());
+        assertEquals("LOST", first.get("status").asText());
+        assertEquals("2026-01-01T00:00:10", first.get("entryTime").asText());
+    }
+
+    @Test
+    public void testFullExportRetainsBoundedHeap() throws IOException {
+        long baseline = usedHeapAfterGc();
+        CountingStream out = new CountingStream(ROWS / 2);
+        long count = ticketExportService.exportTickets(TicketStatus.PAID, FIRST_ENTRY, FIRST_ENTRY.plusYears(1),
+            ExportFormat.CSV, out);
+
+        assertEquals(ROWS - ROWS / 10, count);
+        assertEquals(count + 1, out.lines);
+        long retained = out.usedHeapHalfway - baseline;
+        assertTrue(retained < MAX_RETAINED_BYTES, "Export held " + retained / 1024 / 1024 + " MB halfway through");
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Discards the export, measuring what is still reachable once half of it has been written
+    private static class CountingStream extends OutputStream {
+        private final long measureAtLine;
+        private long lines;
+        private long usedHeapHalfway;
+
+        CountingStream(long measureAtLine) {
+            this.measureAtLine = measureAtLine;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines == measureAtLine) {
+                usedHeapHalfway = usedHeapAfterGc();
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
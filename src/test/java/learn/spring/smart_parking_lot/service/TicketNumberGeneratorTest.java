@@ -0,0 +1,83 @@
+package learn.spring.smart_parking_lot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TicketNumberGeneratorTest {
+
+    @Test
+    public void testNumbersAreUniqueAcrossThreads() throws Exception {
+        TicketNumberGenerator generator = new TicketNumberGenerator(7);
+        int threads = 8;
+        int perThread = 50_000;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    for (int i = 0; i < perThread; i++) {
+                        String number = generator.nextTicketNumber();
+                        // Each thread sees its own numbers in increasing order
+                        if (number.compareTo(previous) <= 0 || !issued.add(number)) {
+                            return false;
+                        }
+                        previous = number;
+                    }
+                    return true;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, issued.size());
+    }
+
+    @Test
+    public void testSequenceOverflowAndClockGoingBackKeepNumbersIncreasing() {
+        AtomicLong now = new AtomicLong(TicketNumberGenerator.EPOCH_MILLIS + 1_000);
+        TicketNumberGenerator generator = new TicketNumberGenerator(3, now::get);
+
+        long previous = generator.nextId();
+        // More numbers than one millisecond's sequence holds, with the clock standing still
+        for (int i = 0; i < 3 * (1 << TicketNumberGenerator.SEQUENCE_BITS); i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        now.addAndGet(-500);
+        long afterStepBack = generator.nextId();
+        assertTrue(afterStepBack > previous);
+    }
+
+    @Test
+    public void testFormatKeepsPrefixAndFixedWidth() {
+        TicketNumberGenerator generator = new TicketNumberGenerator(TicketNumberGenerator.MAX_NODE_ID,
+            () -> TicketNumberGenerator.EPOCH_MILLIS);
+
+        assertEquals("PKT-00000000003FF000", generator.nextTicketNumber());
+        assertEquals("PKT-00000000003FF001", generator.nextTicketNumber());
+        // Reservations share the sequence, so a reservation and a ticket never get the same id
+        assertEquals("RSV-00000000003FF002", generator.nextReservationNumber());
+        assertTrue(TicketNumberGenerator.format("PKT-", Long.MAX_VALUE).matches("PKT-[0-9A-F]{16}"));
+        assertThrows(IllegalArgumentException.class, () -> new TicketNumberGenerator(TicketNumberGenerator.MAX_NODE_ID + 1));
+    }
+}
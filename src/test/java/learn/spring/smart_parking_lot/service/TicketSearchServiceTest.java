@@ -0,0 +1,125 @@
+package learn.spring.smart_parking_lot.service;
+
+import learn.spring.smart_parking_lot.dto.TicketPage;
+import learn.spring.smart_parking_lot.dto.TicketSearchRequest;
+import learn.spring.smart_parking_lot.dto.TicketSummary;
+import learn.spring.smart_parking_lot.exception.ParkingLotException;
+import learn.spring.smart_parking_lot.model.ParkingSpot;
+import learn.spring.smart_parking_lot.model.TicketStatus;
+import learn.spring.smart_parking_lot.model.Vehicle;
+import learn.spring.smart_parking_lot.model.VehicleType;
+import learn.spring.smart_parking_lot.repository.ParkingSpotRepository;
+import learn.spring.smart_parking_lot.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class TicketSearchServiceTest {
+
+    private static final LocalDateTime FIRST_ENTRY = LocalDateTime.of(2025, 6, 1, 8, 0);
+
+    @Autowired
+    private TicketSearchService ticketSearchService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void insertTickets() {
+        Vehicle car = vehicleRepository.save(new Vehicle("SEARCH-CAR", VehicleType.CAR, "Search"));
+        Vehicle bike = vehicleRepository.save(new Vehicle("SEARCH-BIKE", VehicleType.MOTORCYCLE, "Search"));
+        vehicleRepository.flush();
+        ParkingSpot floor1 = parkingSpotRepository.findByFloor(1).get(0);
+        ParkingSpot floor2 = parkingSpotRepository.findByFloor(2).get(0);
+        // Three tickets per minute, so pages must break ties on id
+        for (int i = 0; i < 120; i++) {
+            jdbcTemplate.update("INSERT INTO parking_tickets (id, lot_id, ticket_number, vehicle_id, parking_spot_id, entry_time, status) " +
+                    "VALUES (?, 'default', ?, ?, ?, ?, ?)",
+                200_000 + i, "SEARCH-" + i, i % 2 == 0 ? car.getId() : bike.getId(),
+                i % 3 == 0 ? floor2.getId() : floor1.getId(), FIRST_ENTRY.plusMinutes(i / 3),
+                i % 4 == 0 ? TicketStatus.ACTIVE.name() : TicketStatus.PAID.name());
+        }
+    }
+
+    @Test
+    public void testPagesCoverEveryMatchInOrder() {
+        TicketSearchRequest request = new TicketSearchRequest();
+        request.setFrom(FIRST_ENTRY);
+        request.setTo(FIRST_ENTRY.plusHours(1));
+        request.setLimit(7);
+
+        List<TicketSummary> all = readAllPages(request);
+        assertEquals(120, all.size());
+        assertEquals(all.stream().sorted(Comparator.comparing(TicketSummary::getEntryTime)
+            .thenComparing(TicketSummary::getId)).toList(), all);
+        assertEquals(120, all.stream().map(TicketSummary::getId).distinct().count());
+    }
+
+    @Test
+    public void testFiltersCombine() {
+        TicketSearchRequest request = new TicketSearchRequest();
+        request.setFrom(FIRST_ENTRY.plusMinutes(10));
+        request.setTo(FIRST_ENTRY.plusMinutes(30));
+        request.setFloor(2);
+        request.setVehicleType(VehicleType.CAR);
+        request.setStatus(TicketStatus.PAID);
+        request.setLimit(2);
+
+        List<TicketSummary> matches = readAllPages(request);
+        // Tickets 30 to 89 that are on floor 2 (i % 3 == 0), cars (even) and paid (not i % 4 == 0)
+        List<String> expected = new ArrayList<>();
+        for (int i = 30; i < 90; i++) {
+            if (i % 3 == 0 && i % 2 == 0 && i % 4 != 0) {
+                expected.add("SEARCH-" + i);
+            }
+        }
+        assertEquals(expected, matches.stream().map(TicketSummary::getTicketNumber).toList());
+        matches.forEach(ticket -> {
+            assertEquals(2, ticket.getFloorNumber());
+            assertEquals("SEARCH-CAR", ticket.getLicensePlate());
+        });
+    }
+
+    @Test
+    public void testLastPageHasNoCursorAndBadCursorsAreRejected() {
+        TicketSearchRequest request = new TicketSearchRequest();
+        request.setFrom(FIRST_ENTRY);
+        request.setLimit(500);
+        TicketPage page = ticketSearchService.searchTickets(request);
+        assertNull(page.getNextCursor());
+
+        request.setCursor("not-a-cursor");
+        assertThrows(ParkingLotException.class, () -> ticketSearchService.searchTickets(request));
+    }
+
+    private List<TicketSummary> readAllPages(TicketSearchRequest request) {
+        List<TicketSummary> tickets = new ArrayList<>();
+        do {
+            TicketPage page = ticketSearchService.searchTickets(request);
+            assertTrue(page.getTickets().size() <= request.getLimit());
+            tickets.addAll(page.getTickets());
+            request.setCursor(page.getNextCursor());
+        } while (request.getCursor() != null);
+        return tickets;
+    }
+}